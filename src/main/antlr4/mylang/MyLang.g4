@@ -0,0 +1,113 @@
+grammar MyLang;
+
+/* ----------------------------------------------------------------------------
+   The grammar has no embedded actions: each semantics package turns the parse
+   tree into its own AST (bigStep.AstBuilder, smallstep.AstBuilder,
+   denotational.AstBuilder). Binary operators are written as loops instead of
+   right recursion and are folded left-associatively by the builders.
+---------------------------------------------------------------------------- */
+
+/* ----------------------------------------------------------------------------
+   PARSER RULES
+---------------------------------------------------------------------------- */
+
+start
+  : statement EOF
+  ;
+
+statement
+  : sequenced_statement+
+  ;
+
+sequenced_statement
+  : while_statement
+  | assign_statement
+  | if_statement
+  | do_nothing_statement
+  ;
+
+/* ----------------------------------------------------------------------------
+   Individual statement rules
+---------------------------------------------------------------------------- */
+
+while_statement
+  : 'while' '(' cond=expression ')' '{' body=statement '}'
+  ;
+
+assign_statement
+  : IDENT '=' expression ';'
+  ;
+
+if_statement
+  : 'if' '(' cond=expression ')' '{' consequence=statement '}' 'else' '{' alternative=statement '}'
+  ;
+
+do_nothing_statement
+  : 'do-nothing' ';'?
+  ;
+
+/* ----------------------------------------------------------------------------
+   Expressions
+---------------------------------------------------------------------------- */
+
+expression
+  : less_than
+  ;
+
+less_than
+  : add ('<' add)*
+  ;
+
+add
+  : multiply ('+' multiply)*
+  ;
+
+multiply
+  : brackets ('*' brackets)*
+  ;
+
+brackets
+  : '(' expression ')'
+  | term
+  ;
+
+term
+  : number
+  | boolean
+  | variable
+  ;
+
+/* ----------------------------------------------------------------------------
+   Leaf nodes: number, boolean, variable
+---------------------------------------------------------------------------- */
+
+number
+  : DIGITS
+  ;
+
+boolean
+  : 'true'
+  | 'false'
+  ;
+
+variable
+  : IDENT
+  ;
+
+/* ----------------------------------------------------------------------------
+   LEXER RULES
+---------------------------------------------------------------------------- */
+
+IDENT
+  : [a-z]+
+  ;
+
+/** Matches integer digits. */
+DIGITS
+  : [0-9]+
+  ;
+
+/** Whitespace and line breaks. Skip them so they don’t appear in the parser. */
+WS
+  : [ \t\r\n]+ -> skip
+  ;
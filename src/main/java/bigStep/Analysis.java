@@ -0,0 +1,228 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static bigStep.BigStep.asNumber;
+
+/**
+ * Static facts the compiled backends need: a slot and a single type per variable, the variables
+ * that may be read before they are assigned and so are taken from the input environment, the reads
+ * that may find no value and must check for one at run time, and the variables that definitely have
+ * a value when the program ends. A read that succeeded counts as an assignment for the reads after
+ * it, so only the first read of an input on each path is checked.
+ * <p>
+ * Types are inferred over the whole program, so they do not depend on the order statements are
+ * seen in: operands of arithmetic are Numbers, conditions are Bools, and {@code y = x} gives
+ * {@code y} the type of {@code x}. A variable that nothing constrains, like a copy of an input, is
+ * {@link Type#BOXED}.
+ */
+class Analysis {
+
+    /**
+     * How a variable is kept in an {@code int}: Numbers as they are, Bools as 0/1, and values of a
+     * type the program does not determine as an index into the values boxed when the run starts.
+     * The compiled code only ever copies a boxed variable, so the index stays valid.
+     */
+    enum Type {
+        NUMBER, BOOL, BOXED;
+
+        int encode(Expression value, List<Expression> boxes) {
+            return switch (this) {
+                case NUMBER -> asNumber(value).value();
+                case BOOL -> ((Bool) value).value() ? 1 : 0;
+                case BOXED -> {
+                    boxes.add(value);
+                    yield boxes.size() - 1;
+                }
+            };
+        }
+
+        Expression decode(int value, List<Expression> boxes) {
+            return switch (this) {
+                case NUMBER -> asNumber(value);
+                case BOOL -> Bool.of(value != 0);
+                case BOXED -> boxes.get(value);
+            };
+        }
+    }
+
+    final Resolver.Slots slots = new Resolver.Slots();
+    private final Map<String, String> parents = new HashMap<>();
+    private final Map<String, Type> types = new HashMap<>();
+    private final Set<String> inputs = new HashSet<>();
+    private final Set<Variable> unassignedReads = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Assignment> unassignedWrites = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Set<String> assigned = new HashSet<>();
+
+    static Analysis analyze(Statement statement) {
+        var analysis = new Analysis();
+        analysis.statement(statement);
+        return analysis;
+    }
+
+    String[] names() {
+        return slots.names();
+    }
+
+    /** Whether the variable may be read where it has no value yet, unless the environment gave it one. */
+    boolean mayBeUnassigned(Variable variable) {
+        return unassignedReads.contains(variable);
+    }
+
+    /** Whether the assigned variable may have no value just before the assignment. */
+    boolean mayBeUnassigned(Assignment assignment) {
+        return unassignedWrites.contains(assignment);
+    }
+
+    Type[] types() {
+        var names = slots.names();
+        var types = new Type[names.length];
+        for (int i = 0; i < names.length; i++)
+            types[i] = type(names[i]);
+        return types;
+    }
+
+    Type type(String name) {
+        return types.getOrDefault(find(name), Type.BOXED);
+    }
+
+    boolean[] inputs() {
+        return flags(inputs::contains);
+    }
+
+    boolean[] assigned() {
+        return flags(assigned::contains);
+    }
+
+    private boolean[] flags(Predicate<String> test) {
+        var names = slots.names();
+        var flags = new boolean[names.length];
+        for (int i = 0; i < names.length; i++)
+            flags[i] = test.test(names[i]);
+        return flags;
+    }
+
+    private void statement(Statement statement) {
+        while (statement instanceof Sequence s) {
+            statement(s.first());
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a when a.expression() instanceof Variable v -> {
+                read(v, null);
+                slots.slot(a.name());
+                union(a.name(), v.name());
+                write(a);
+            }
+            case Assignment a -> {
+                declare(a.name(), type(a.expression()));
+                write(a);
+            }
+            case If i -> {
+                expect(i.condition(), Type.BOOL);
+                var before = new HashSet<>(assigned);
+                statement(i.consequence());
+                var afterThen = assigned;
+                assigned = before;
+                statement(i.alternative());
+                afterThen.retainAll(assigned);
+                assigned = afterThen;
+            }
+            case While w -> {
+                expect(w.condition(), Type.BOOL);
+                var before = new HashSet<>(assigned);
+                statement(w.body());
+                assigned = before;
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    private Type type(Expression expression) {
+        return switch (expression) {
+            case Number n -> Type.NUMBER;
+            case Bool b -> Type.BOOL;
+            case Add a -> {
+                expect(a.left(), Type.NUMBER);
+                expect(a.right(), Type.NUMBER);
+                yield Type.NUMBER;
+            }
+            case Mult m -> {
+                expect(m.left(), Type.NUMBER);
+                expect(m.right(), Type.NUMBER);
+                yield Type.NUMBER;
+            }
+            case LessThan l -> {
+                expect(l.left(), Type.NUMBER);
+                expect(l.right(), Type.NUMBER);
+                yield Type.BOOL;
+            }
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+    }
+
+    private void expect(Expression expression, Type type) {
+        if (expression instanceof Variable v)
+            read(v, type);
+        else if (type(expression) != type)
+            throw new IllegalStateException("Expected " + (type == Type.BOOL ? "Bool" : "Number") + ", got: " + expression);
+    }
+
+    private void read(Variable variable, Type type) {
+        if (!assigned.contains(variable.name())) {
+            inputs.add(variable.name());
+            unassignedReads.add(variable);
+            assigned.add(variable.name());
+        }
+        declare(variable.name(), type);
+    }
+
+    private void write(Assignment assignment) {
+        if (assigned.add(assignment.name()))
+            unassignedWrites.add(assignment);
+    }
+
+    private void declare(String name, Type type) {
+        slots.slot(name);
+        if (type != null)
+            constrain(name, type);
+    }
+
+    private String find(String name) {
+        var parent = parents.get(name);
+        if (parent == null)
+            return name;
+        var root = find(parent);
+        parents.put(name, root);
+        return root;
+    }
+
+    private void constrain(String name, Type type) {
+        var previous = types.putIfAbsent(find(name), type);
+        if (previous != null && previous != type)
+            throw new IllegalStateException("Variable is used as both Number and Bool: " + name);
+    }
+
+    private void union(String name, String other) {
+        var root = find(name);
+        var otherRoot = find(other);
+        if (root.equals(otherRoot))
+            return;
+        parents.put(root, otherRoot);
+        var type = types.remove(root);
+        if (type != null)
+            constrain(otherRoot, type);
+    }
+}
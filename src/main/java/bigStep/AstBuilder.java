@@ -0,0 +1,79 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import mylang.MyLangParser.*;
+import mylang.ParseTrees;
+import mylang.ProgramCache;
+
+class AstBuilder {
+
+    private static final ProgramCache<Statement> CACHE = new ProgramCache<>(1024, AstBuilder::start);
+
+    static Statement parse(String source) {
+        return CACHE.get(source);
+    }
+
+    static Statement start(StartContext ctx) {
+        return statement(ctx.statement());
+    }
+
+    private static Statement statement(StatementContext ctx) {
+        var statements = ctx.sequenced_statement();
+        var result = sequenced(statements.getLast());
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(sequenced(statements.get(i)), result);
+        return result;
+    }
+
+    private static Statement sequenced(Sequenced_statementContext ctx) {
+        if (ctx.while_statement() != null) {
+            var w = ctx.while_statement();
+            return new While(expression(w.cond), statement(w.body));
+        }
+        if (ctx.assign_statement() != null) {
+            var a = ctx.assign_statement();
+            return new Assignment(a.IDENT().getText(), expression(a.expression()));
+        }
+        if (ctx.if_statement() != null) {
+            var i = ctx.if_statement();
+            return new If(expression(i.cond), statement(i.consequence), statement(i.alternative));
+        }
+        return new DoNothing();
+    }
+
+    private static Expression expression(ExpressionContext ctx) {
+        var operands = ctx.less_than().add();
+        var result = add(operands.getFirst());
+        for (int i = 1; i < operands.size(); i++)
+            result = new LessThan(result, add(operands.get(i)));
+        return result;
+    }
+
+    private static Expression add(AddContext ctx) {
+        var operands = ctx.multiply();
+        var result = multiply(operands.getFirst());
+        for (int i = 1; i < operands.size(); i++)
+            result = new Add(result, multiply(operands.get(i)));
+        return result;
+    }
+
+    private static Expression multiply(MultiplyContext ctx) {
+        var operands = ctx.brackets();
+        var result = brackets(operands.getFirst());
+        for (int i = 1; i < operands.size(); i++)
+            result = new Mult(result, brackets(operands.get(i)));
+        return result;
+    }
+
+    private static Expression brackets(BracketsContext ctx) {
+        if (ctx.expression() != null)
+            return expression(ctx.expression());
+        var term = ctx.term();
+        if (term.number() != null)
+            return new Number(ParseTrees.number(term.number()));
+        if (term.boolean_() != null)
+            return new Bool(term.boolean_().getText().equals("true"));
+        return new Variable(term.variable().getText());
+    }
+}
@@ -0,0 +1,240 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs one program over many input environments given as columns, one {@code int[]} per variable
+ * with one entry per row. Rows are processed in blocks: every expression is computed for the whole
+ * block with {@link IntVector} operations, and {@code If}/{@code While} keep a mask of the rows still
+ * taking that path, so rows that diverge only cost the lanes that are switched off.
+ * <p>
+ * Only Number variables are supported. A variable that is not assigned on every path has no value in
+ * some rows, so it must be given as a column; every program variable is a column of the result, and
+ * columns the program does not mention are passed through.
+ */
+class BatchEvaluator {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    static final int BLOCK = 1024;
+
+    private final Statement statement;
+    private final Resolver.Slots slots;
+    private final String[] names;
+    private final boolean[] inputs;
+    private final boolean[] assigned;
+
+    private BatchEvaluator(Statement statement, Analysis analysis) {
+        this.statement = statement;
+        this.slots = analysis.slots;
+        this.names = analysis.names();
+        this.inputs = analysis.inputs();
+        this.assigned = analysis.assigned();
+    }
+
+    static BatchEvaluator compile(Statement statement) {
+        var analysis = Analysis.analyze(statement);
+        var names = analysis.names();
+        var types = analysis.types();
+        for (int i = 0; i < names.length; i++)
+            if (types[i] == Analysis.Type.BOOL)
+                throw new IllegalArgumentException("Batch evaluation supports Number variables only: " + names[i]);
+        return new BatchEvaluator(statement, analysis);
+    }
+
+    static Map<String, int[]> evaluate(Statement statement, Map<String, int[]> columns) {
+        return compile(statement).evaluate(columns);
+    }
+
+    Map<String, int[]> evaluate(Map<String, int[]> columns) {
+        int rows = rows(columns);
+        var in = new int[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            in[i] = columns.get(names[i]);
+            if (in[i] == null && inputs[i])
+                throw new NullPointerException("Nothing found for name: " + names[i]);
+            if (in[i] == null && !assigned[i])
+                throw new IllegalArgumentException("Variable is not assigned on every path, pass it as a column: " + names[i]);
+        }
+
+        var out = new int[names.length][rows];
+        var block = new Block();
+        for (int offset = 0; offset < rows; offset += BLOCK)
+            block.run(in, out, offset, Math.min(BLOCK, rows - offset));
+
+        var result = new LinkedHashMap<>(columns);
+        for (int i = 0; i < names.length; i++)
+            result.put(names[i], out[i]);
+        return result;
+    }
+
+    private static int rows(Map<String, int[]> columns) {
+        if (columns.isEmpty())
+            throw new IllegalArgumentException("At least one column is needed");
+        int rows = -1;
+        for (var column : columns.values()) {
+            if (rows >= 0 && column.length != rows)
+                throw new IllegalArgumentException("Columns have different lengths");
+            rows = column.length;
+        }
+        return rows;
+    }
+
+    /** Registers and scratch buffers for one block of rows, reused from block to block. */
+    private final class Block {
+        final int[][] vars = new int[names.length][BLOCK];
+        final ArrayDeque<int[]> freeInts = new ArrayDeque<>();
+        final ArrayDeque<boolean[]> freeMasks = new ArrayDeque<>();
+        int width;
+
+        void run(int[][] in, int[][] out, int offset, int rows) {
+            width = SPECIES.loopBound(rows + SPECIES.length() - 1);
+            for (int i = 0; i < names.length; i++)
+                if (in[i] != null)
+                    System.arraycopy(in[i], offset, vars[i], 0, rows);
+
+            var active = mask();
+            Arrays.fill(active, 0, rows, true);
+            Arrays.fill(active, rows, width, false);
+            execute(statement, active);
+            release(active);
+
+            for (int i = 0; i < names.length; i++)
+                System.arraycopy(vars[i], 0, out[i], offset, rows);
+        }
+
+        private void execute(Statement statement, boolean[] active) {
+            while (statement instanceof Sequence s) {
+                execute(s.first(), active);
+                statement = s.second();
+            }
+            switch (statement) {
+                case DoNothing d -> {
+                }
+                case Assignment a -> {
+                    var target = vars[slots.slot(a.name())];
+                    var values = operand(a.expression());
+                    for (int i = 0; i < width; i += SPECIES.length())
+                        vector(a.expression(), values, i).intoArray(target, i, VectorMask.fromArray(SPECIES, active, i));
+                    release(a.expression(), values);
+                }
+                case If i -> {
+                    var condition = mask();
+                    condition(i.condition(), condition);
+                    var otherwise = mask();
+                    for (int k = 0; k < width; k += SPECIES.length()) {
+                        var live = VectorMask.fromArray(SPECIES, active, k);
+                        var taken = VectorMask.fromArray(SPECIES, condition, k);
+                        live.andNot(taken).intoArray(otherwise, k);
+                        live.and(taken).intoArray(condition, k);
+                    }
+                    if (any(condition))
+                        execute(i.consequence(), condition);
+                    if (any(otherwise))
+                        execute(i.alternative(), otherwise);
+                    release(condition);
+                    release(otherwise);
+                }
+                case While w -> {
+                    var running = mask();
+                    System.arraycopy(active, 0, running, 0, width);
+                    var condition = mask();
+                    while (true) {
+                        condition(w.condition(), condition);
+                        for (int k = 0; k < width; k += SPECIES.length())
+                            VectorMask.fromArray(SPECIES, running, k)
+                                    .and(VectorMask.fromArray(SPECIES, condition, k))
+                                    .intoArray(running, k);
+                        if (!any(running))
+                            break;
+                        execute(w.body(), running);
+                    }
+                    release(running);
+                    release(condition);
+                }
+                default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+            }
+        }
+
+        private void condition(Expression expression, boolean[] target) {
+            switch (expression) {
+                case Bool b -> Arrays.fill(target, 0, width, b.value());
+                case LessThan l -> {
+                    var left = operand(l.left());
+                    var right = operand(l.right());
+                    for (int i = 0; i < width; i += SPECIES.length())
+                        vector(l.left(), left, i).compare(VectorOperators.LT, vector(l.right(), right, i)).intoArray(target, i);
+                    release(l.left(), left);
+                    release(l.right(), right);
+                }
+                default -> throw new IllegalStateException("Expected Bool, got: " + expression);
+            }
+        }
+
+        /** Values of a Number expression: a variable's register, a filled scratch buffer, or null for a literal. */
+        private int[] operand(Expression expression) {
+            return switch (expression) {
+                case Number n -> null;
+                case Variable v -> vars[slots.slot(v.name())];
+                case Add a -> arithmetic(a.left(), a.right(), true);
+                case Mult m -> arithmetic(m.left(), m.right(), false);
+                default -> throw new IllegalStateException("Expected Number, got: " + expression);
+            };
+        }
+
+        private int[] arithmetic(Expression left, Expression right, boolean add) {
+            var l = operand(left);
+            var r = operand(right);
+            var target = ints();
+            for (int i = 0; i < width; i += SPECIES.length()) {
+                var a = vector(left, l, i);
+                var b = vector(right, r, i);
+                (add ? a.add(b) : a.mul(b)).intoArray(target, i);
+            }
+            release(left, l);
+            release(right, r);
+            return target;
+        }
+
+        private IntVector vector(Expression expression, int[] values, int i) {
+            return values == null
+                    ? IntVector.broadcast(SPECIES, ((Number) expression).value())
+                    : IntVector.fromArray(SPECIES, values, i);
+        }
+
+        private boolean any(boolean[] mask) {
+            for (int i = 0; i < width; i += SPECIES.length())
+                if (VectorMask.fromArray(SPECIES, mask, i).anyTrue())
+                    return true;
+            return false;
+        }
+
+        private int[] ints() {
+            var buffer = freeInts.poll();
+            return buffer != null ? buffer : new int[BLOCK];
+        }
+
+        private boolean[] mask() {
+            var buffer = freeMasks.poll();
+            return buffer != null ? buffer : new boolean[BLOCK];
+        }
+
+        private void release(Expression expression, int[] values) {
+            if (values != null && !(expression instanceof Variable))
+                freeInts.push(values);
+        }
+
+        private void release(boolean[] mask) {
+            freeMasks.push(mask);
+        }
+    }
+}
@@ -1,34 +1,40 @@
 package bigStep;
 
 
-import java.util.HashMap;
+import runtime.Fuel;
+import runtime.PersistentMap;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Objects;
 
 class BigStep {
 
     static class Environment {
-        final Map<String, Expression> map;
+        PersistentMap<String, Expression> map;
+
+        Environment(PersistentMap<String, Expression> map) {this.map = map;}
 
-        Environment(Map<String, Expression> map) {this.map = map;}
+        Environment(Map<String, Expression> map) {this(PersistentMap.copyOf(map));}
 
         public Environment() {
-            this(new HashMap<>());
+            this(PersistentMap.empty());
         }
 
         void set(String name, Expression value) {
-            map.put(name, value);
+            map = map.put(name, value);
         }
 
         Expression get(String name) {
-            return Objects.requireNonNull(
-                    map.get(name),
-                    "Nothing found for name: " + name
-            );
+            var value = map.get(name);
+            if (value == null)
+                throw new NullPointerException("Nothing found for name: " + name);
+            return value;
         }
 
         public Environment copy() {
-            return new Environment(new HashMap<>(map));
+            return new Environment(map);
         }
 
         @Override public String toString() {
@@ -36,10 +42,87 @@ class BigStep {
         }
     }
 
+    static final class Interpreter {
+        private final Deque<Statement> stack = new ArrayDeque<>();
+        private Environment env;
+
+        Interpreter(Statement statement, Environment env) {
+            this.stack.push(statement);
+            this.env = env;
+        }
+
+        static Environment evaluate(Statement statement, Environment env) {
+            return new Interpreter(statement, env).run();
+        }
+
+        static Outcome evaluate(Statement statement, Environment env, Fuel fuel) {
+            return new Interpreter(statement, env).run(fuel);
+        }
+
+        /** Runs to the end without taking fuel. */
+        Environment run() {
+            return ((Finished) execute(null)).environment();
+        }
+
+        /** Runs until the program ends or {@code fuel}, taken once per loop iteration, runs out. */
+        Outcome run(Fuel fuel) {
+            return execute(Objects.requireNonNull(fuel));
+        }
+
+        private Outcome execute(Fuel fuel) {
+            while (!stack.isEmpty()) {
+                switch (stack.pop()) {
+                    case Sequence s -> {
+                        stack.push(s.second());
+                        stack.push(s.first());
+                    }
+                    case If i -> stack.push(i.condition().evalBool(env) ? i.consequence() : i.alternative());
+                    case While w -> {
+                        if (fuel != null && !fuel.consume()) {
+                            stack.push(w);
+                            return new OutOfFuel(this);
+                        }
+                        if (w.condition().evalBool(env)) {
+                            stack.push(w);
+                            stack.push(w.body());
+                        }
+                    }
+                    case Statement s -> env = s.evaluate(env);
+                }
+            }
+            return new Finished(env);
+        }
+
+        Environment environment() {
+            return env;
+        }
+
+        sealed interface Outcome {}
+
+        record Finished(Environment environment) implements Outcome {}
+
+        /** A paused run; the interpreter keeps its stack and environment until it is resumed. */
+        record OutOfFuel(Interpreter interpreter) implements Outcome {
+            Outcome resume(Fuel fuel) {
+                return interpreter.run(fuel);
+            }
+        }
+    }
+
     interface Statement {
         Environment evaluate(Environment env);
     }
 
+    record DoNothing() implements Statement {
+        @Override public Environment evaluate(Environment env) {
+            return env;
+        }
+
+        @Override public String toString() {
+            return "do-nothing";
+        }
+    }
+
     record Assignment(String name, Expression expression) implements Statement {
         @Override public Environment evaluate(Environment env) {
             var new_env = env.copy();
@@ -65,13 +148,7 @@ class BigStep {
 
     record If(Expression condition, Statement consequence, Statement alternative) implements Statement {
         @Override public Environment evaluate(Environment env) {
-            var result = condition.evaluate(env);
-            if (result.equals(new Bool(true)))
-                return consequence.evaluate(env);
-
-            if (result.equals(new Bool(false)))
-                return alternative.evaluate(env);
-            throw new IllegalStateException("Expected Bool, got: " + result);
+            return condition.evalBool(env) ? consequence.evaluate(env) : alternative.evaluate(env);
         }
 
         @Override public String toString() {
@@ -81,12 +158,14 @@ class BigStep {
 
     record While(Expression condition, Statement body) implements Statement {
 
+        /**
+         * Loops until the condition is false, however long that takes: the recursive evaluator takes
+         * no fuel. {@link Interpreter#evaluate(Statement, Environment, Fuel)} is the bounded form.
+         */
         @Override public Environment evaluate(Environment env) {
-            var result = condition.evaluate(env);
-            if (result.equals(new Bool(false)))
-                return env;
-            var new_env = body.evaluate(env);
-            return this.evaluate(new_env);
+            while (condition.evalBool(env))
+                env = body.evaluate(env);
+            return env;
         }
 
         @Override public String toString() {
@@ -97,6 +176,17 @@ class BigStep {
 
     interface Expression {
         Expression evaluate(Environment env);
+
+        default int evalInt(Environment env) {
+            return asNumber(evaluate(env)).value;
+        }
+
+        default boolean evalBool(Environment env) {
+            var result = evaluate(env);
+            if (result instanceof Bool b)
+                return b.value;
+            throw new IllegalStateException("Expected Bool, got: " + result);
+        }
     }
 
     record Number(int value) implements Expression {
@@ -104,16 +194,31 @@ class BigStep {
             return this;
         }
 
+        @Override public int evalInt(Environment env) {
+            return value;
+        }
+
         @Override public String toString() {
             return String.valueOf(value);
         }
     }
 
     record Bool(boolean value) implements Expression {
+        static final Bool TRUE = new Bool(true);
+        static final Bool FALSE = new Bool(false);
+
+        static Bool of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
         @Override public Expression evaluate(Environment env) {
             return this;
         }
 
+        @Override public boolean evalBool(Environment env) {
+            return value;
+        }
+
         @Override public String toString() {
             return String.valueOf(value);
         }
@@ -133,17 +238,27 @@ class BigStep {
         return (Number) exp;
     }
 
+    private static final Number[] SMALL_NUMBERS = new Number[1024 + 128];
+
+    static {
+        for (int i = 0; i < SMALL_NUMBERS.length; i++)
+            SMALL_NUMBERS[i] = new Number(i - 128);
+    }
+
     static Number asNumber(int value) {
+        if (value >= -128 && value < 1024)
+            return SMALL_NUMBERS[value + 128];
         return new Number(value);
     }
 
     record Add(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Number(
-                    asNumber(l).value + asNumber(r).value);
+            return asNumber(evalInt(env));
+        }
+
+        @Override public int evalInt(Environment env) {
+            return left.evalInt(env) + right.evalInt(env);
         }
 
         @Override public String toString() {
@@ -154,10 +269,11 @@ class BigStep {
     record Mult(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Number(
-                    asNumber(l).value * asNumber(r).value);
+            return asNumber(evalInt(env));
+        }
+
+        @Override public int evalInt(Environment env) {
+            return left.evalInt(env) * right.evalInt(env);
         }
 
         @Override public String toString() {
@@ -168,9 +284,11 @@ class BigStep {
     record LessThan(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Bool(asNumber(l).value < asNumber(r).value);
+            return Bool.of(evalBool(env));
+        }
+
+        @Override public boolean evalBool(Environment env) {
+            return left.evalInt(env) < right.evalInt(env);
         }
 
         @Override public String toString() {
@@ -0,0 +1,408 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import org.objectweb.asm.ClassTooLargeException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+import runtime.Fuel;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Translates a statement into a hidden class whose {@code run(int[])} keeps every variable
+ * in an {@code int} local (Bools as 0/1) and turns {@code While} into a backward branch,
+ * so the JIT compiles the user program like any other Java loop.
+ * <p>
+ * Like {@code Denotational.compile()}, a variable has one static type, inferred by {@link Analysis},
+ * and a read of a variable that may not have been assigned yet is checked where it happens, as in
+ * {@code evaluate()}. Long programs are split into one method per run of top-level statements; a
+ * single statement too large for a method is left to the {@link Interpreter}.
+ */
+class BytecodeCompiler {
+
+    interface Program {
+        /** {@code fuel} is null for a program compiled without one. */
+        void run(int[] state, Fuel fuel);
+    }
+
+    record Compiled(Program program, String[] names, Analysis.Type[] types, boolean[] inputs, Fuel fuel)
+            implements Function<Environment, Environment> {
+
+        @Override public Environment apply(Environment env) {
+            int n = names.length;
+            var state = new int[2 * n];
+            var boxes = new ArrayList<Expression>();
+            for (int i = 0; i < n; i++) {
+                // variables the program writes before reading keep whatever the environment had until then
+                var value = inputs[i] ? env.map.get(names[i]) : null;
+                if (value == null)
+                    continue;
+                state[i] = types[i].encode(value, boxes);
+                state[n + i] = 1;
+            }
+
+            program.run(state, fuel);
+
+            var result = env.copy();
+            for (int i = 0; i < n; i++)
+                if (state[n + i] != 0)
+                    result.set(names[i], types[i].decode(state[i], boxes));
+            return result;
+        }
+    }
+
+    private static final String PROGRAM = "bigStep/BytecodeCompiler$Program";
+    private static final String CLASS = "bigStep/CompiledProgram";
+    private static final String FUEL = "runtime/Fuel";
+    private static final String RUN = "([IL" + FUEL + ";)V";
+
+    /** AST nodes per generated method, well below what fits in the JVM's 64 KB of code per method. */
+    private static final int CHUNK_NODES = 2_000;
+
+    private final Analysis analysis;
+    private final Resolver.Slots slots;
+    private final boolean fueled;
+    private MethodVisitor mv;
+    private int n;
+
+    private BytecodeCompiler(Analysis analysis, boolean fueled) {
+        this.analysis = analysis;
+        this.slots = analysis.slots;
+        this.fueled = fueled;
+    }
+
+    /**
+     * Compiles the statement, or returns the {@link Interpreter} for it if a single top-level
+     * statement is too large for one JVM method.
+     */
+    static Function<Environment, Environment> compile(Statement statement) {
+        return compile(statement, null);
+    }
+
+    /**
+     * Like {@link #compile(Statement)}, but every loop iteration takes a step from {@code fuel}; a run
+     * that finds none left throws {@link Fuel.ExhaustedException}.
+     */
+    static Function<Environment, Environment> compile(Statement statement, Fuel fuel) {
+        var analysis = Analysis.analyze(statement);
+        byte[] bytes;
+        try {
+            bytes = new BytecodeCompiler(analysis, fuel != null).generate(statement);
+        } catch (MethodTooLargeException | ClassTooLargeException e) {
+            if (fuel == null)
+                return env -> Interpreter.evaluate(statement, env);
+            return env -> {
+                if (Interpreter.evaluate(statement, env, fuel) instanceof Interpreter.Finished finished)
+                    return finished.environment();
+                throw new Fuel.ExhaustedException();
+            };
+        }
+        return new Compiled(define(bytes), analysis.names(), analysis.types(), analysis.inputs(), fuel);
+    }
+
+    private static Program define(byte[] bytes) {
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Program) lookup.findConstructor(lookup.lookupClass(), methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define compiled program", e);
+        }
+    }
+
+    // ---- code generation: local 1 is the state array, local 2 the fuel, then one value and one "written"
+    // flag per variable.
+    // The top-level statements are split into methods of at most CHUNK_NODES nodes each; a method
+    // loads and stores only the variables it uses.
+
+    private byte[] generate(Statement statement) {
+        n = slots.size();
+        var cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(V17, ACC_FINAL | ACC_SUPER, CLASS, null, "java/lang/Object", new String[]{PROGRAM});
+
+        mv = cw.visitMethod(0, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        var chunks = chunks(statement);
+        if (chunks.size() == 1) {
+            method(cw, ACC_PUBLIC, "run", chunks.getFirst());
+        } else {
+            for (int i = 0; i < chunks.size(); i++)
+                method(cw, ACC_PRIVATE, "chunk" + i, chunks.get(i));
+            mv = cw.visitMethod(ACC_PUBLIC, "run", RUN, null, null);
+            mv.visitCode();
+            for (int i = 0; i < chunks.size(); i++) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitVarInsn(ALOAD, 2);
+                mv.visitMethodInsn(INVOKESPECIAL, CLASS, "chunk" + i, RUN, false);
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static List<List<Statement>> chunks(Statement statement) {
+        var chunks = new ArrayList<List<Statement>>();
+        var chunk = new ArrayList<Statement>();
+        int nodes = 0;
+        while (true) {
+            var next = statement instanceof Sequence s ? s.first() : statement;
+            int size = size(next);
+            if (!chunk.isEmpty() && nodes + size > CHUNK_NODES) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                nodes = 0;
+            }
+            chunk.add(next);
+            nodes += size;
+            if (!(statement instanceof Sequence s))
+                break;
+            statement = s.second();
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    private void method(ClassWriter cw, int access, String name, List<Statement> statements) {
+        var names = new LinkedHashSet<String>();
+        for (var statement : statements)
+            names(statement, names);
+
+        mv = cw.visitMethod(access, name, RUN, null, null);
+        mv.visitCode();
+        for (var variable : names) {
+            load(value(variable));
+            load(written(variable));
+        }
+        for (var statement : statements)
+            statement(statement);
+        for (var variable : names) {
+            store(value(variable));
+            store(written(variable));
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void load(int local) {
+        mv.visitVarInsn(ALOAD, 1);
+        push(local - 3);
+        mv.visitInsn(IALOAD);
+        mv.visitVarInsn(ISTORE, local);
+    }
+
+    private void store(int local) {
+        mv.visitVarInsn(ALOAD, 1);
+        push(local - 3);
+        mv.visitVarInsn(ILOAD, local);
+        mv.visitInsn(IASTORE);
+    }
+
+    private static int size(Statement statement) {
+        int size = 0;
+        while (statement instanceof Sequence s) {
+            size += 1 + size(s.first());
+            statement = s.second();
+        }
+        return size + switch (statement) {
+            case Assignment a -> 1 + size(a.expression());
+            case If i -> 1 + size(i.condition()) + size(i.consequence()) + size(i.alternative());
+            case While w -> 1 + size(w.condition()) + size(w.body());
+            default -> 1;
+        };
+    }
+
+    private static int size(Expression expression) {
+        return switch (expression) {
+            case Add a -> 1 + size(a.left()) + size(a.right());
+            case Mult m -> 1 + size(m.left()) + size(m.right());
+            case LessThan l -> 1 + size(l.left()) + size(l.right());
+            default -> 1;
+        };
+    }
+
+    private static void names(Statement statement, Set<String> names) {
+        while (statement instanceof Sequence s) {
+            names(s.first(), names);
+            statement = s.second();
+        }
+        switch (statement) {
+            case Assignment a -> {
+                names.add(a.name());
+                names(a.expression(), names);
+            }
+            case If i -> {
+                names(i.condition(), names);
+                names(i.consequence(), names);
+                names(i.alternative(), names);
+            }
+            case While w -> {
+                names(w.condition(), names);
+                names(w.body(), names);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void names(Expression expression, Set<String> names) {
+        switch (expression) {
+            case Variable v -> names.add(v.name());
+            case Add a -> {
+                names(a.left(), names);
+                names(a.right(), names);
+            }
+            case Mult m -> {
+                names(m.left(), names);
+                names(m.right(), names);
+            }
+            case LessThan l -> {
+                names(l.left(), names);
+                names(l.right(), names);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private int value(String name) {
+        return 3 + slots.slot(name);
+    }
+
+    private int written(String name) {
+        return 3 + n + slots.slot(name);
+    }
+
+    private void statement(Statement statement) {
+        while (statement instanceof Sequence s) {
+            statement(s.first());
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a -> {
+                expression(a.expression());
+                mv.visitVarInsn(ISTORE, value(a.name()));
+                push(1);
+                mv.visitVarInsn(ISTORE, written(a.name()));
+            }
+            case If i -> {
+                var otherwise = new Label();
+                var end = new Label();
+                jumpIfFalse(i.condition(), otherwise);
+                statement(i.consequence());
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(otherwise);
+                statement(i.alternative());
+                mv.visitLabel(end);
+            }
+            case While w -> {
+                var condition = new Label();
+                var end = new Label();
+                mv.visitLabel(condition);
+                jumpIfFalse(w.condition(), end);
+                statement(w.body());
+                if (fueled) {
+                    mv.visitVarInsn(ALOAD, 2);
+                    mv.visitMethodInsn(INVOKEVIRTUAL, FUEL, "take", "()V", false);
+                }
+                mv.visitJumpInsn(GOTO, condition);
+                mv.visitLabel(end);
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    private void jumpIfFalse(Expression condition, Label target) {
+        switch (condition) {
+            case Bool b -> {
+                if (!b.value())
+                    mv.visitJumpInsn(GOTO, target);
+            }
+            case LessThan l -> {
+                expression(l.left());
+                expression(l.right());
+                mv.visitJumpInsn(IF_ICMPGE, target);
+            }
+            default -> {
+                expression(condition);
+                mv.visitJumpInsn(IFEQ, target);
+            }
+        }
+    }
+
+    private void expression(Expression expression) {
+        switch (expression) {
+            case Number n -> push(n.value());
+            case Bool b -> push(b.value() ? 1 : 0);
+            case Variable v -> {
+                if (analysis.mayBeUnassigned(v)) {
+                    var present = new Label();
+                    mv.visitVarInsn(ILOAD, written(v.name()));
+                    mv.visitJumpInsn(IFNE, present);
+                    mv.visitTypeInsn(NEW, "java/lang/NullPointerException");
+                    mv.visitInsn(DUP);
+                    mv.visitLdcInsn("Nothing found for name: " + v.name());
+                    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/NullPointerException", "<init>", "(Ljava/lang/String;)V", false);
+                    mv.visitInsn(ATHROW);
+                    mv.visitLabel(present);
+                }
+                mv.visitVarInsn(ILOAD, value(v.name()));
+            }
+            case Add a -> {
+                expression(a.left());
+                expression(a.right());
+                mv.visitInsn(IADD);
+            }
+            case Mult m -> {
+                expression(m.left());
+                expression(m.right());
+                mv.visitInsn(IMUL);
+            }
+            case LessThan l -> {
+                var otherwise = new Label();
+                var end = new Label();
+                jumpIfFalse(l, otherwise);
+                push(1);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(otherwise);
+                push(0);
+                mv.visitLabel(end);
+            }
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        }
+    }
+
+    private void push(int value) {
+        if (value >= -1 && value <= 5)
+            mv.visitInsn(ICONST_0 + value);
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+            mv.visitIntInsn(BIPUSH, value);
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+            mv.visitIntInsn(SIPUSH, value);
+        else
+            mv.visitLdcInsn(value);
+    }
+}
@@ -0,0 +1,266 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static bigStep.BigStep.asNumber;
+
+/**
+ * Evaluates a program with common-subexpression reuse. The program is {@link Interner interned}
+ * first, so every repeated expression is one node; each compound node keeps the last value it
+ * computed and reuses it for as long as none of its free variables has been assigned since.
+ * <p>
+ * Every assignment stamps its variable with the next tick of a clock and every cached value is
+ * stamped with the tick it was computed at, so the check is one comparison per free variable. A
+ * new run stamps all variables, which drops every cached value. A program keeps this state between
+ * runs and must not be run by two threads at once.
+ */
+class CseEvaluator {
+
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+    private final Map<Expression, Node> nodes = new IdentityHashMap<>();
+
+    static Program compile(Statement statement) {
+        var evaluator = new CseEvaluator();
+        var interner = new Interner();
+        var code = evaluator.statement(interner.intern(statement));
+        return new Program(code, evaluator.slots.keySet().toArray(String[]::new), interner.size());
+    }
+
+    static final class Program {
+        private final Code code;
+        private final String[] names;
+        private final int nodes;
+        private final State state;
+
+        private Program(Code code, String[] names, int nodes) {
+            this.code = code;
+            this.names = names;
+            this.nodes = nodes;
+            this.state = new State(names.length);
+        }
+
+        Environment evaluate(Environment env) {
+            var frame = state.frame;
+            long start = ++state.clock;
+            for (int i = 0; i < names.length; i++) {
+                frame[i] = env.map.get(names[i]);
+                state.versions[i] = start;
+            }
+
+            code.execute(state);
+
+            var result = env.copy();
+            for (int i = 0; i < names.length; i++)
+                if (frame[i] != null)
+                    result.set(names[i], frame[i]);
+            return result;
+        }
+
+        /** Distinct nodes of the interned program. */
+        int nodes() {
+            return nodes;
+        }
+
+        /** Compound expressions computed rather than reused, over all runs so far. */
+        long computations() {
+            return state.computations;
+        }
+    }
+
+    private static final class State {
+        final Expression[] frame;
+        final long[] versions;
+        long clock;
+        long computations;
+
+        State(int size) {
+            frame = new Expression[size];
+            versions = new long[size];
+        }
+    }
+
+    private int slot(String name) {
+        return slots.computeIfAbsent(name, n -> slots.size());
+    }
+
+    private Code statement(Statement statement) {
+        var statements = new ArrayList<Code>();
+        while (statement instanceof Sequence s) {
+            statements.add(statement(s.first()));
+            statement = s.second();
+        }
+        statements.add(switch (statement) {
+            case DoNothing d -> state -> {};
+            case Assignment a -> {
+                int slot = slot(a.name());
+                var value = expression(a.expression());
+                yield state -> {
+                    state.frame[slot] = value.evaluate(state);
+                    state.versions[slot] = ++state.clock;
+                };
+            }
+            case If i -> {
+                var condition = expression(i.condition());
+                var consequence = statement(i.consequence());
+                var alternative = statement(i.alternative());
+                yield state -> {
+                    if (condition.evalBool(state))
+                        consequence.execute(state);
+                    else
+                        alternative.execute(state);
+                };
+            }
+            case While w -> {
+                var condition = expression(w.condition());
+                var body = statement(w.body());
+                yield state -> {
+                    while (condition.evalBool(state))
+                        body.execute(state);
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        });
+        if (statements.size() == 1)
+            return statements.getFirst();
+        var block = statements.toArray(Code[]::new);
+        return state -> {
+            for (var code : block)
+                code.execute(state);
+        };
+    }
+
+    private Node expression(Expression expression) {
+        var node = nodes.get(expression);
+        if (node == null) {
+            node = switch (expression) {
+                case Number n -> new Constant(n);
+                case Bool b -> new Constant(b);
+                case Variable v -> new Read(v.name(), slot(v.name()));
+                case Add a -> new Arithmetic(expression(a.left()), expression(a.right()), '+');
+                case Mult m -> new Arithmetic(expression(m.left()), expression(m.right()), '*');
+                case LessThan l -> new Arithmetic(expression(l.left()), expression(l.right()), '<');
+                default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+            };
+            nodes.put(expression, node);
+        }
+        return node;
+    }
+
+    private interface Code {
+        void execute(State state);
+    }
+
+    private abstract static class Node {
+        abstract Expression evaluate(State state);
+
+        /** Slots of the variables the value depends on, sorted. */
+        abstract int[] free();
+
+        boolean evalBool(State state) {
+            var result = evaluate(state);
+            if (result instanceof Bool b)
+                return b.value();
+            throw new IllegalStateException("Expected Bool, got: " + result);
+        }
+    }
+
+    private static final class Constant extends Node {
+        final Expression value;
+
+        Constant(Expression value) {
+            this.value = value;
+        }
+
+        @Override Expression evaluate(State state) {
+            return value;
+        }
+
+        @Override int[] free() {
+            return new int[0];
+        }
+    }
+
+    private static final class Read extends Node {
+        final String name;
+        final int slot;
+
+        Read(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override Expression evaluate(State state) {
+            var value = state.frame[slot];
+            if (value == null)
+                throw new NullPointerException("Nothing found for name: " + name);
+            return value;
+        }
+
+        @Override int[] free() {
+            return new int[]{slot};
+        }
+    }
+
+    private static final class Arithmetic extends Node {
+        final Node left;
+        final Node right;
+        final char operator;
+        final int[] free;
+        Expression value;
+        long stamp = -1;
+
+        Arithmetic(Node left, Node right, char operator) {
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+            this.free = union(left.free(), right.free());
+        }
+
+        @Override Expression evaluate(State state) {
+            if (stamp >= 0 && fresh(state))
+                return value;
+            var l = asNumber(left.evaluate(state)).value();
+            var r = asNumber(right.evaluate(state)).value();
+            value = switch (operator) {
+                case '+' -> asNumber(l + r);
+                case '*' -> asNumber(l * r);
+                default -> Bool.of(l < r);
+            };
+            stamp = state.clock;
+            state.computations++;
+            return value;
+        }
+
+        private boolean fresh(State state) {
+            for (int slot : free)
+                if (state.versions[slot] > stamp)
+                    return false;
+            return true;
+        }
+
+        @Override int[] free() {
+            return free;
+        }
+
+        private static int[] union(int[] a, int[] b) {
+            var result = new int[a.length + b.length];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length || j < b.length) {
+                int next = j == b.length || i < a.length && a[i] <= b[j] ? a[i] : b[j];
+                if (i < a.length && a[i] == next)
+                    i++;
+                if (j < b.length && b[j] == next)
+                    j++;
+                result[n++] = next;
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import runtime.PersistentMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Re-evaluates a program that changes a little between runs, as in an editor that runs it after
+ * every edit. The top-level sequence is split into statements, and for each one the last run keeps
+ * the environment after it, the variables it read with their values before it, and what it wrote.
+ * <p>
+ * On the next run the statements equal to the ones before are a prefix whose environment is taken
+ * as it is, and evaluation resumes at the first changed statement. From there on, a statement that
+ * was run before is not run again when the variables it reads have the same values; its writes are
+ * applied instead. A statement that reads a variable it wrote itself records that variable as read
+ * too, which can only make it run when it did not have to.
+ * <p>
+ * Only the top level is split: a loop is one statement, re-run as a whole when anything it reads
+ * changed. A run that fails keeps the results of the previous one.
+ */
+class IncrementalEvaluator {
+
+    private final Environment input;
+    private List<Step> steps = List.of();
+    private int executed;
+
+    IncrementalEvaluator(Environment input) {
+        this.input = input;
+    }
+
+    /**
+     * @param statement the statement as it was run
+     * @param reads the variables read, with their values before the statement; {@code null} for unbound
+     * @param writes the variables assigned, with their values after the statement
+     * @param after the environment after the statement
+     */
+    private record Step(Statement statement, Map<String, Expression> reads, Map<String, Expression> writes,
+                        PersistentMap<String, Expression> after) {}
+
+    Environment evaluate(Statement program) {
+        var statements = new ArrayList<Statement>();
+        while (program instanceof Sequence s) {
+            statements.add(s.first());
+            program = s.second();
+        }
+        statements.add(program);
+
+        int prefix = 0;
+        while (prefix < statements.size() && prefix < steps.size() && same(steps.get(prefix).statement(), statements.get(prefix)))
+            prefix++;
+
+        var result = new ArrayList<>(steps.subList(0, prefix));
+        var map = prefix == 0 ? input.map : steps.get(prefix - 1).after();
+        Map<Statement, List<Step>> previous = null;
+        executed = 0;
+        for (int i = prefix; i < statements.size(); i++) {
+            var statement = statements.get(i);
+            if (previous == null)
+                previous = index(steps.subList(prefix, steps.size()));
+            var step = reuse(previous.get(statement), map);
+            step = step != null ? new Step(statement, step.reads(), step.writes(), apply(map, step.writes())) : run(statement, map);
+            result.add(step);
+            map = step.after();
+        }
+        steps = result;
+        return new Environment(map);
+    }
+
+    /** Statements run rather than reused by the last {@link #evaluate}. */
+    int executed() {
+        return executed;
+    }
+
+    private Step run(Statement statement, PersistentMap<String, Expression> before) {
+        var reads = new LinkedHashMap<String, Expression>();
+        var after = statement.evaluate(new RecordingEnvironment(before, reads)).map;
+        var writes = new LinkedHashMap<String, Expression>();
+        after.diff(before, writes::put);
+        executed++;
+        return new Step(statement, reads, writes, after);
+    }
+
+    private static Step reuse(List<Step> candidates, PersistentMap<String, Expression> map) {
+        if (candidates == null)
+            return null;
+        for (var candidate : candidates) {
+            boolean unchanged = true;
+            for (var read : candidate.reads().entrySet())
+                if (!Objects.equals(map.get(read.getKey()), read.getValue())) {
+                    unchanged = false;
+                    break;
+                }
+            if (unchanged)
+                return candidate;
+        }
+        return null;
+    }
+
+    private static PersistentMap<String, Expression> apply(PersistentMap<String, Expression> map, Map<String, Expression> writes) {
+        for (var write : writes.entrySet())
+            map = map.put(write.getKey(), write.getValue());
+        return map;
+    }
+
+    private static Map<Statement, List<Step>> index(List<Step> steps) {
+        var index = new HashMap<Statement, List<Step>>();
+        for (var step : steps)
+            index.computeIfAbsent(step.statement(), s -> new ArrayList<>()).add(step);
+        return index;
+    }
+
+    private static boolean same(Statement a, Statement b) {
+        return a == b || a.equals(b);
+    }
+
+    /** Records every variable read, with its value in the environment the statement started from. */
+    private static final class RecordingEnvironment extends Environment {
+        private final PersistentMap<String, Expression> before;
+        private final Map<String, Expression> reads;
+
+        RecordingEnvironment(PersistentMap<String, Expression> before, Map<String, Expression> reads) {
+            this(before, before, reads);
+        }
+
+        private RecordingEnvironment(PersistentMap<String, Expression> map, PersistentMap<String, Expression> before,
+                                     Map<String, Expression> reads) {
+            super(map);
+            this.before = before;
+            this.reads = reads;
+        }
+
+        @Override Expression get(String name) {
+            if (!reads.containsKey(name))
+                reads.put(name, before.get(name));
+            return super.get(name);
+        }
+
+        @Override public Environment copy() {
+            return new RecordingEnvironment(map, before, reads);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hash-consing factory: {@link #intern} returns a tree in which structurally equal subtrees are one
+ * shared instance, so a generated program that repeats the same expression keeps it only once.
+ * <p>
+ * Children are interned before their parent, so a node is looked up by its kind, its own value and
+ * the identity of its already shared children. The record {@code equals}/{@code hashCode} would
+ * walk whole subtrees on every lookup instead.
+ */
+class Interner {
+
+    private final Map<Key, Object> nodes = new HashMap<>();
+
+    /** Number of distinct nodes interned so far. */
+    int size() {
+        return nodes.size();
+    }
+
+    Statement intern(Statement statement) {
+        var firsts = new ArrayList<Statement>();
+        while (statement instanceof Sequence s) {
+            firsts.add(intern(s.first()));
+            statement = s.second();
+        }
+        var result = simple(statement);
+        for (int i = firsts.size() - 1; i >= 0; i--)
+            result = share(new Key(Sequence.class, null, firsts.get(i), result, null), new Sequence(firsts.get(i), result));
+        return result;
+    }
+
+    private Statement simple(Statement statement) {
+        return switch (statement) {
+            case DoNothing d -> share(new Key(DoNothing.class, null, null, null, null), d);
+            case Assignment a -> {
+                var expression = intern(a.expression());
+                yield share(new Key(Assignment.class, a.name(), expression, null, null), new Assignment(a.name(), expression));
+            }
+            case If i -> {
+                var condition = intern(i.condition());
+                var consequence = intern(i.consequence());
+                var alternative = intern(i.alternative());
+                yield share(new Key(If.class, null, condition, consequence, alternative), new If(condition, consequence, alternative));
+            }
+            case While w -> {
+                var condition = intern(w.condition());
+                var body = intern(w.body());
+                yield share(new Key(While.class, null, condition, body, null), new While(condition, body));
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+    }
+
+    Expression intern(Expression expression) {
+        return switch (expression) {
+            case Number n -> share(new Key(Number.class, n.value(), null, null, null), n);
+            case Bool b -> share(new Key(Bool.class, b.value(), null, null, null), b);
+            case Variable v -> share(new Key(Variable.class, v.name(), null, null, null), v);
+            case Add a -> {
+                var left = intern(a.left());
+                var right = intern(a.right());
+                yield share(new Key(Add.class, null, left, right, null), new Add(left, right));
+            }
+            case Mult m -> {
+                var left = intern(m.left());
+                var right = intern(m.right());
+                yield share(new Key(Mult.class, null, left, right, null), new Mult(left, right));
+            }
+            case LessThan l -> {
+                var left = intern(l.left());
+                var right = intern(l.right());
+                yield share(new Key(LessThan.class, null, left, right, null), new LessThan(left, right));
+            }
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T share(Key key, T node) {
+        return (T) nodes.computeIfAbsent(key, k -> node);
+    }
+
+    /** A node's kind and value compared by equality, its children by identity. */
+    private static final class Key {
+        final Class<?> kind;
+        final Object value;
+        final Object first;
+        final Object second;
+        final Object third;
+        final int hash;
+
+        Key(Class<?> kind, Object value, Object first, Object second, Object third) {
+            this.kind = kind;
+            this.value = value;
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            this.hash = Objects.hash(kind, value, System.identityHashCode(first),
+                    System.identityHashCode(second), System.identityHashCode(third));
+        }
+
+        @Override public boolean equals(Object obj) {
+            return obj instanceof Key that
+                   && kind == that.kind && Objects.equals(value, that.value)
+                   && first == that.first && second == that.second && third == that.third;
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package bigStep;
+
+/**
+ * Tokenizer for the language of {@code MyLang.g4}. Tokens are offsets into the source;
+ * only identifiers are turned into Strings, and only when the parser asks for {@link #text()}.
+ */
+class Lexer {
+
+    enum Token {
+        NUMBER, IDENT,
+        WHILE, IF, ELSE, TRUE, FALSE, DO_NOTHING,
+        LPAREN, RPAREN, LBRACE, RBRACE, SEMICOLON, ASSIGN, LESS, PLUS, STAR,
+        EOF
+    }
+
+    private final CharSequence source;
+    private int position;
+    private int line = 1;
+    private int lineStart;
+
+    Token token;
+    int start;
+    int end;
+    int tokenLine;
+    int tokenColumn;
+
+    Lexer(CharSequence source) {
+        this.source = source;
+    }
+
+    Token next() {
+        skipWhitespace();
+        start = position;
+        tokenLine = line;
+        tokenColumn = position - lineStart + 1;
+        token = scan();
+        end = position;
+        return token;
+    }
+
+    String text() {
+        return source.subSequence(start, end).toString();
+    }
+
+    int number() {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = source.charAt(i) - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10)
+                throw error("Number is too large: " + text());
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    Parser.ParseException error(String message) {
+        return new Parser.ParseException(message, tokenLine, tokenColumn);
+    }
+
+    private Token scan() {
+        if (position == source.length())
+            return Token.EOF;
+        char c = source.charAt(position++);
+        switch (c) {
+            case '(': return Token.LPAREN;
+            case ')': return Token.RPAREN;
+            case '{': return Token.LBRACE;
+            case '}': return Token.RBRACE;
+            case ';': return Token.SEMICOLON;
+            case '=': return Token.ASSIGN;
+            case '<': return Token.LESS;
+            case '+': return Token.PLUS;
+            case '*': return Token.STAR;
+        }
+        if (isDigit(c)) {
+            while (position < source.length() && isDigit(source.charAt(position)))
+                position++;
+            return Token.NUMBER;
+        }
+        if (isLetter(c)) {
+            while (position < source.length() && isLetter(source.charAt(position)))
+                position++;
+            return keyword();
+        }
+        throw error("Unexpected character: '" + c + "'");
+    }
+
+    private Token keyword() {
+        if (is("while"))
+            return Token.WHILE;
+        if (is("if"))
+            return Token.IF;
+        if (is("else"))
+            return Token.ELSE;
+        if (is("true"))
+            return Token.TRUE;
+        if (is("false"))
+            return Token.FALSE;
+        if (is("do") && startsWith("-nothing", position)) {
+            position += "-nothing".length();
+            return Token.DO_NOTHING;
+        }
+        return Token.IDENT;
+    }
+
+    private boolean is(String keyword) {
+        return position - start == keyword.length() && startsWith(keyword, start);
+    }
+
+    private boolean startsWith(String text, int offset) {
+        if (offset + text.length() > source.length())
+            return false;
+        for (int i = 0; i < text.length(); i++)
+            if (source.charAt(offset + i) != text.charAt(i))
+                return false;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length()) {
+            char c = source.charAt(position);
+            if (c == '\n') {
+                line++;
+                lineStart = position + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+}
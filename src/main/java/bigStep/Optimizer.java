@@ -0,0 +1,85 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import runtime.Folding;
+
+import java.util.ArrayList;
+
+import static bigStep.BigStep.asNumber;
+
+/**
+ * Rewrites a program into an equivalent one with less work left for the evaluators: folds literal
+ * arithmetic and comparisons, applies {@code x + 0}, {@code x * 1} and {@code x * 0} (see
+ * {@link Folding}), keeps only the taken branch of an {@code If} on a literal, drops
+ * {@code while (false)} and removes {@code do-nothing} from sequences.
+ * <p>
+ * Like the compilers, it assumes a program that does not fail: {@code x * 0} becomes {@code 0}
+ * without reading {@code x}, so an unbound or Bool {@code x} no longer throws.
+ */
+class Optimizer {
+
+    private static final Folding.Literals<Expression> LITERALS = new Folding.Literals<>() {
+        @Override public Integer value(Expression expression) {
+            return expression instanceof Number n ? n.value() : null;
+        }
+
+        @Override public Expression number(int value) {
+            return asNumber(value);
+        }
+
+        @Override public Expression bool(boolean value) {
+            return Bool.of(value);
+        }
+    };
+
+    static Statement optimize(Statement statement) {
+        var statements = new ArrayList<Statement>();
+        while (statement instanceof Sequence s) {
+            add(statements, optimize(s.first()));
+            statement = s.second();
+        }
+        add(statements, simple(statement));
+
+        if (statements.isEmpty())
+            return new DoNothing();
+        var result = statements.getLast();
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+
+    private static void add(ArrayList<Statement> statements, Statement statement) {
+        if (!(statement instanceof DoNothing))
+            statements.add(statement);
+    }
+
+    private static Statement simple(Statement statement) {
+        return switch (statement) {
+            case DoNothing d -> d;
+            case Assignment a -> new Assignment(a.name(), optimize(a.expression()));
+            case If i -> {
+                var condition = optimize(i.condition());
+                if (condition instanceof Bool b)
+                    yield optimize(b.value() ? i.consequence() : i.alternative());
+                yield new If(condition, optimize(i.consequence()), optimize(i.alternative()));
+            }
+            case While w -> {
+                var condition = optimize(w.condition());
+                if (condition instanceof Bool b && !b.value())
+                    yield new DoNothing();
+                yield new While(condition, optimize(w.body()));
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+    }
+
+    static Expression optimize(Expression expression) {
+        return switch (expression) {
+            case Add a -> Folding.add(optimize(a.left()), optimize(a.right()), LITERALS, Add::new);
+            case Mult m -> Folding.mult(optimize(m.left()), optimize(m.right()), LITERALS, Mult::new);
+            case LessThan t -> Folding.lessThan(optimize(t.left()), optimize(t.right()), LITERALS, LessThan::new);
+            default -> expression;
+        };
+    }
+}
@@ -1,56 +1,184 @@
 package bigStep;
 
-import bigStep.BigStep.Expression;
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import bigStep.Lexer.Token;
 
-import static java.lang.Character.isAlphabetic;
-import static java.lang.Character.isDigit;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 
 class Parser {
 
-
     /*
-    EXP: EXP | TERM
-    TERM: N | V | (EXP)
-    N: 0|1|2
-    V: a|b
+    STATEMENT: SIMPLE+
+    SIMPLE: while (EXP) { STATEMENT }
+          | if (EXP) { STATEMENT } else { STATEMENT }
+          | V = EXP;
+          | do-nothing [;]
+    EXP: SUM [< SUM]*
+    SUM: PRODUCT [+ PRODUCT]*
+    PRODUCT: TERM [* TERM]*
+    TERM: N | V | true | false | (EXP)
+    N: [0-9]+
+    V: [a-z]+
     * */
-    char[] tokens;
-    int i;
+
+    static class ParseException extends RuntimeException {
+        final int line;
+        final int column;
+
+        ParseException(String message, int line, int column) {
+            super(String.format("%d:%d: %s", line, column, message));
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    private Lexer lexer;
 
     Expression parse(char[] tokens) {
-        this.tokens = tokens;
-        this.i = 0;
+        return parseExpression(CharBuffer.wrap(tokens));
+    }
+
+    Expression parseExpression(CharSequence source) {
+        start(source);
+        var expression = parseExp();
+        expect(Token.EOF);
+        return expression;
+    }
+
+    Statement parseStatement(CharSequence source) {
+        start(source);
+        var statement = parseStatement();
+        expect(Token.EOF);
+        return statement;
+    }
+
+    private void start(CharSequence source) {
+        lexer = new Lexer(source);
+        lexer.next();
+    }
+
+    private Statement parseStatement() {
+        var statements = new ArrayList<Statement>();
+        do {
+            statements.add(parseSimple());
+        } while (startsStatement());
+
+        var result = statements.getLast();
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
 
-        return parseExp();
+    private boolean startsStatement() {
+        return switch (lexer.token) {
+            case WHILE, IF, IDENT, DO_NOTHING -> true;
+            default -> false;
+        };
+    }
+
+    private Statement parseSimple() {
+        switch (lexer.token) {
+            case WHILE -> {
+                lexer.next();
+                var condition = parseCondition();
+                var body = parseBlock();
+                return new While(condition, body);
+            }
+            case IF -> {
+                lexer.next();
+                var condition = parseCondition();
+                var consequence = parseBlock();
+                expect(Token.ELSE);
+                var alternative = parseBlock();
+                return new If(condition, consequence, alternative);
+            }
+            case IDENT -> {
+                var name = lexer.text();
+                lexer.next();
+                expect(Token.ASSIGN);
+                var expression = parseExp();
+                expect(Token.SEMICOLON);
+                return new Assignment(name, expression);
+            }
+            case DO_NOTHING -> {
+                lexer.next();
+                if (lexer.token == Token.SEMICOLON)
+                    lexer.next();
+                return new DoNothing();
+            }
+            default -> throw lexer.error("Expected statement, got " + describe());
+        }
+    }
+
+    private Expression parseCondition() {
+        expect(Token.LPAREN);
+        var condition = parseExp();
+        expect(Token.RPAREN);
+        return condition;
+    }
+
+    private Statement parseBlock() {
+        expect(Token.LBRACE);
+        var statement = parseStatement();
+        expect(Token.RBRACE);
+        return statement;
     }
 
     private Expression parseExp() {
-        Expression left = parseTerm();
-        while (nextIs('+')) {
-            i++;
-            left = new BigStep.Add(left, parseTerm());
+        var left = parseSum();
+        while (lexer.token == Token.LESS) {
+            lexer.next();
+            left = new LessThan(left, parseSum());
         }
         return left;
     }
 
-    private Expression parseTerm() {
-        if (isDigit(tokens[i])) {
-            return new BigStep.Number(tokens[i++] - '0');
+    private Expression parseSum() {
+        var left = parseProduct();
+        while (lexer.token == Token.PLUS) {
+            lexer.next();
+            left = new Add(left, parseProduct());
         }
-        if (isAlphabetic(tokens[i])) {
-            return new BigStep.Variable(String.valueOf(tokens[i++]));
+        return left;
+    }
+
+    private Expression parseProduct() {
+        var left = parseTerm();
+        while (lexer.token == Token.STAR) {
+            lexer.next();
+            left = new Mult(left, parseTerm());
         }
-        if (nextIs('(')) {
-            i++;
-            var e = parseExp();
-            i++; // consume ")"
-            return e;
+        return left;
+    }
+
+    private Expression parseTerm() {
+        Expression term;
+        switch (lexer.token) {
+            case NUMBER -> term = new Number(lexer.number());
+            case TRUE -> term = new Bool(true);
+            case FALSE -> term = new Bool(false);
+            case IDENT -> term = new Variable(lexer.text());
+            case LPAREN -> {
+                lexer.next();
+                var e = parseExp();
+                expect(Token.RPAREN);
+                return e;
+            }
+            default -> throw lexer.error("Expected expression, got " + describe());
         }
+        lexer.next();
+        return term;
+    }
 
-        return null;
+    private void expect(Token token) {
+        if (lexer.token != token)
+            throw lexer.error("Expected " + token + ", got " + describe());
+        lexer.next();
     }
 
-    private boolean nextIs(char c) {
-        return i < tokens.length && tokens[i] == c;
+    private String describe() {
+        return lexer.token == Token.EOF ? "end of input" : "'" + lexer.text() + "'";
     }
 }
@@ -0,0 +1,185 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Specializes a program to the part of its input that is known in advance. Variables with a known
+ * value are static: their reads are replaced by the value and folded by the {@link Optimizer}, and
+ * assignments of static values produce no code. What is left, the residual program, only computes
+ * what depends on the remaining inputs:
+ * <ul>
+ *     <li>an {@code If} on a static condition is replaced by the branch it takes,</li>
+ *     <li>a {@code While} whose condition stays static is unrolled, as long as it ends within
+ *     {@code unrollLimit} iterations; otherwise it is kept, and the variables its body assigns
+ *     become dynamic before it,</li>
+ *     <li>where the branches of a dynamic {@code If} leave a variable with different static values,
+ *     each branch assigns its value before the merge,</li>
+ *     <li>static variables are assigned at the end, so the residual program run on the remaining
+ *     inputs produces the same environment as the original run on all of them.</li>
+ * </ul>
+ * Folding makes the {@link Optimizer}'s assumption that the program does not fail.
+ */
+class PartialEvaluator {
+
+    static final int DEFAULT_UNROLL_LIMIT = 64;
+
+    private final int unrollLimit;
+
+    private PartialEvaluator(int unrollLimit) {
+        this.unrollLimit = unrollLimit;
+    }
+
+    static Statement specialize(Statement program, Environment known) {
+        return specialize(program, known, DEFAULT_UNROLL_LIMIT);
+    }
+
+    static Statement specialize(Statement program, Environment known, int unrollLimit) {
+        var statics = new LinkedHashMap<String, Expression>();
+        known.map.forEach(statics::put);
+        var out = new ArrayList<Statement>();
+        new PartialEvaluator(unrollLimit).statement(program, statics, out);
+        materialize(statics, Map.of(), out);
+        return block(out);
+    }
+
+    private void statement(Statement statement, Map<String, Expression> statics, List<Statement> out) {
+        while (statement instanceof Sequence s) {
+            statement(s.first(), statics, out);
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a -> {
+                var value = expression(a.expression(), statics);
+                if (isValue(value)) {
+                    statics.put(a.name(), value);
+                } else {
+                    statics.remove(a.name());
+                    out.add(new Assignment(a.name(), value));
+                }
+            }
+            case If i -> {
+                var condition = expression(i.condition(), statics);
+                if (condition instanceof Bool b) {
+                    statement(b.value() ? i.consequence() : i.alternative(), statics, out);
+                    return;
+                }
+                var consequenceStatics = new LinkedHashMap<>(statics);
+                var consequence = new ArrayList<Statement>();
+                statement(i.consequence(), consequenceStatics, consequence);
+                var alternativeStatics = new LinkedHashMap<>(statics);
+                var alternative = new ArrayList<Statement>();
+                statement(i.alternative(), alternativeStatics, alternative);
+
+                statics.clear();
+                consequenceStatics.forEach((name, value) -> {
+                    if (value.equals(alternativeStatics.get(name)))
+                        statics.put(name, value);
+                });
+                materialize(consequenceStatics, statics, consequence);
+                materialize(alternativeStatics, statics, alternative);
+                out.add(new If(condition, block(consequence), block(alternative)));
+            }
+            case While w -> {
+                if (!unroll(w, statics, out))
+                    loop(w, statics, out);
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    /** Unrolls the loop if its condition is static up to its end within the limit; otherwise leaves everything as it was. */
+    private boolean unroll(While w, Map<String, Expression> statics, List<Statement> out) {
+        int mark = out.size();
+        var saved = new LinkedHashMap<>(statics);
+        for (int n = 0; ; n++) {
+            var condition = expression(w.condition(), statics);
+            if (condition instanceof Bool b && !b.value())
+                return true;
+            if (!(condition instanceof Bool) || n == unrollLimit) {
+                out.subList(mark, out.size()).clear();
+                statics.clear();
+                statics.putAll(saved);
+                return false;
+            }
+            statement(w.body(), statics, out);
+        }
+    }
+
+    private void loop(While w, Map<String, Expression> statics, List<Statement> out) {
+        var assigned = new LinkedHashSet<String>();
+        assignedIn(w.body(), assigned);
+        for (var name : assigned) {
+            var value = statics.remove(name);
+            if (value != null)
+                out.add(new Assignment(name, value));
+        }
+
+        var bodyStatics = new LinkedHashMap<>(statics);
+        var body = new ArrayList<Statement>();
+        statement(w.body(), bodyStatics, body);
+        materialize(bodyStatics, statics, body);
+        out.add(new While(expression(w.condition(), statics), block(body)));
+    }
+
+    private static Expression expression(Expression expression, Map<String, Expression> statics) {
+        return Optimizer.optimize(substitute(expression, statics));
+    }
+
+    private static Expression substitute(Expression expression, Map<String, Expression> statics) {
+        return switch (expression) {
+            case Variable v -> statics.getOrDefault(v.name(), v);
+            case Add a -> new Add(substitute(a.left(), statics), substitute(a.right(), statics));
+            case Mult m -> new Mult(substitute(m.left(), statics), substitute(m.right(), statics));
+            case LessThan l -> new LessThan(substitute(l.left(), statics), substitute(l.right(), statics));
+            default -> expression;
+        };
+    }
+
+    private static boolean isValue(Expression expression) {
+        return expression instanceof Number || expression instanceof Bool;
+    }
+
+    /** Assigns every variable of {@code from} whose static value {@code into} does not have. */
+    private static void materialize(Map<String, Expression> from, Map<String, Expression> into, List<Statement> out) {
+        from.forEach((name, value) -> {
+            if (!value.equals(into.get(name)))
+                out.add(new Assignment(name, value));
+        });
+    }
+
+    private static void assignedIn(Statement statement, Set<String> names) {
+        while (statement instanceof Sequence s) {
+            assignedIn(s.first(), names);
+            statement = s.second();
+        }
+        switch (statement) {
+            case Assignment a -> names.add(a.name());
+            case If i -> {
+                assignedIn(i.consequence(), names);
+                assignedIn(i.alternative(), names);
+            }
+            case While w -> assignedIn(w.body(), names);
+            default -> {
+            }
+        }
+    }
+
+    private static Statement block(List<Statement> statements) {
+        if (statements.isEmpty())
+            return new DoNothing();
+        var result = statements.getLast();
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import runtime.Profile;
+
+import java.util.ArrayList;
+
+/**
+ * Builds a copy of a program in which every node reports to a {@link Profile} while it is
+ * evaluated. Sequences are not wrapped, so the statements of a block show up side by side under
+ * the statement that contains them. The original program is left as it is and runs at full speed.
+ * <p>
+ * The copy is meant for {@link Statement#evaluate}; the compilers and the {@link Interpreter}
+ * dispatch on the node records and see through to the evaluation of the wrapped statement at most.
+ */
+class Profiler {
+
+    static Statement instrument(Statement statement, Profile profile) {
+        var statements = new ArrayList<Statement>();
+        while (statement instanceof Sequence s) {
+            statements.add(instrument(s.first(), profile));
+            statement = s.second();
+        }
+        var result = simple(statement, profile);
+        for (int i = statements.size() - 1; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+
+    private static Statement simple(Statement statement, Profile profile) {
+        var copy = switch (statement) {
+            case DoNothing d -> d;
+            case Assignment a -> new Assignment(a.name(), instrument(a.expression(), profile));
+            case If i -> new If(instrument(i.condition(), profile),
+                    instrument(i.consequence(), profile), instrument(i.alternative(), profile));
+            case While w -> new While(instrument(w.condition(), profile), instrument(w.body(), profile));
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+        return new ProfiledStatement(copy, Profile.label(statement), profile);
+    }
+
+    static Expression instrument(Expression expression, Profile profile) {
+        var copy = switch (expression) {
+            case Number n -> n;
+            case Bool b -> b;
+            case Variable v -> v;
+            case Add a -> new Add(instrument(a.left(), profile), instrument(a.right(), profile));
+            case Mult m -> new Mult(instrument(m.left(), profile), instrument(m.right(), profile));
+            case LessThan l -> new LessThan(instrument(l.left(), profile), instrument(l.right(), profile));
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+        return new ProfiledExpression(copy, Profile.label(expression), profile);
+    }
+
+    record ProfiledStatement(Statement statement, String label, Profile profile) implements Statement {
+        @Override public Environment evaluate(Environment env) {
+            profile.enter(label);
+            try {
+                return statement.evaluate(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public String toString() {
+            return statement.toString();
+        }
+    }
+
+    record ProfiledExpression(Expression expression, String label, Profile profile) implements Expression {
+        @Override public Expression evaluate(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evaluate(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public int evalInt(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evalInt(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public boolean evalBool(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evalBool(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public String toString() {
+            return expression.toString();
+        }
+    }
+}
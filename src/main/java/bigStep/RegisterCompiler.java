@@ -0,0 +1,433 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+import runtime.Fuel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Translates a statement into code for a register machine: a flat {@code int[]} of opcodes and
+ * operands, run by a single {@code switch} loop over an {@code int[]} register file. Registers
+ * {@code 0..n-1} hold the variables (Bools as 0/1, see {@link Analysis.Type}), followed by one "written" flag for every
+ * variable that is an input or not definitely assigned at the end, followed by temporaries.
+ * <p>
+ * Typing and input rules are the ones of {@link BytecodeCompiler}: a read that may find no value is
+ * preceded by a {@code CHECK} of the variable's flag. Besides the plain three-address
+ * instructions there are fused forms for the shapes loops are made of: {@code x = x + k} is a single
+ * {@code ADDK}, and {@code x < y} / {@code x < k} used as a condition is a single compare-and-branch.
+ */
+class RegisterCompiler {
+
+    static final int HALT = 0;
+    static final int CONST = 1;     // d k       r[d] = k
+    static final int MOVE = 2;      // d s       r[d] = r[s]
+    static final int ADD = 3;       // d a b     r[d] = r[a] + r[b]
+    static final int ADDK = 4;      // d a k     r[d] = r[a] + k
+    static final int MUL = 5;       // d a b     r[d] = r[a] * r[b]
+    static final int LT = 6;        // d a b     r[d] = r[a] < r[b] ? 1 : 0
+    static final int JUMP = 7;      // t         pc = t
+    static final int JZ = 8;        // a t       if (r[a] == 0) pc = t
+    static final int JNZ = 9;       // a t       if (r[a] != 0) pc = t
+    static final int JLT = 10;      // a b t     if (r[a] < r[b]) pc = t
+    static final int JGE = 11;      // a b t     if (r[a] >= r[b]) pc = t
+    static final int JLTK = 12;     // a k t     if (r[a] < k) pc = t
+    static final int JGEK = 13;     // a k t     if (r[a] >= k) pc = t
+    static final int CHECK = 14;    // f v       if (r[f] == 0) throw: variable v has no value
+
+    private static final String[] MNEMONICS =
+            {"HALT", "CONST", "MOVE", "ADD", "ADDK", "MUL", "LT", "JUMP", "JZ", "JNZ", "JLT", "JGE", "JLTK", "JGEK", "CHECK"};
+    /** Operands of each opcode: r a register, k a constant, t a jump target, v a variable. */
+    private static final String[] OPERANDS =
+            {"", "rk", "rr", "rrr", "rrk", "rrr", "rrr", "t", "rt", "rt", "rrt", "rrt", "rkt", "rkt", "rv"};
+
+    private static final int MAGIC = 0x57484c32; // "WHL2"
+
+    /**
+     * {@code flags[i]} is the register that records whether variable {@code i} has a value,
+     * or {@code -1} when it is not an input and every run assigns it.
+     */
+    record Program(int[] code, int registers, String[] names, Analysis.Type[] types, boolean[] inputs, int[] flags)
+            implements Function<Environment, Environment> {
+
+        @Override public Environment apply(Environment env) {
+            return apply(env, null);
+        }
+
+        /**
+         * Runs the program taking a step from {@code fuel} on every backward jump, that is once per
+         * loop iteration; a run that finds none left throws {@link Fuel.ExhaustedException}.
+         */
+        Environment apply(Environment env, Fuel fuel) {
+            var r = new int[registers];
+            var boxes = new ArrayList<Expression>();
+            for (int i = 0; i < names.length; i++) {
+                // variables the program writes before reading keep whatever the environment had until then
+                var value = inputs[i] ? env.map.get(names[i]) : null;
+                if (value == null)
+                    continue;
+                r[i] = types[i].encode(value, boxes);
+                r[flags[i]] = 1;
+            }
+
+            run(code, r, names, fuel);
+
+            var result = env.copy();
+            for (int i = 0; i < names.length; i++)
+                if (flags[i] < 0 || r[flags[i]] != 0)
+                    result.set(names[i], types[i].decode(r[i], boxes));
+            return result;
+        }
+
+        static void run(int[] code, int[] r, String[] names, Fuel fuel) {
+            int pc = 0;
+            while (true) {
+                switch (code[pc]) {
+                    case HALT -> {
+                        return;
+                    }
+                    case CONST -> {
+                        r[code[pc + 1]] = code[pc + 2];
+                        pc += 3;
+                    }
+                    case MOVE -> {
+                        r[code[pc + 1]] = r[code[pc + 2]];
+                        pc += 3;
+                    }
+                    case ADD -> {
+                        r[code[pc + 1]] = r[code[pc + 2]] + r[code[pc + 3]];
+                        pc += 4;
+                    }
+                    case ADDK -> {
+                        r[code[pc + 1]] = r[code[pc + 2]] + code[pc + 3];
+                        pc += 4;
+                    }
+                    case MUL -> {
+                        r[code[pc + 1]] = r[code[pc + 2]] * r[code[pc + 3]];
+                        pc += 4;
+                    }
+                    case LT -> {
+                        r[code[pc + 1]] = r[code[pc + 2]] < r[code[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case JUMP -> pc = jump(pc, code[pc + 1], fuel);
+                    case JZ -> pc = r[code[pc + 1]] == 0 ? jump(pc, code[pc + 2], fuel) : pc + 3;
+                    case JNZ -> pc = r[code[pc + 1]] != 0 ? jump(pc, code[pc + 2], fuel) : pc + 3;
+                    case JLT -> pc = r[code[pc + 1]] < r[code[pc + 2]] ? jump(pc, code[pc + 3], fuel) : pc + 4;
+                    case JGE -> pc = r[code[pc + 1]] >= r[code[pc + 2]] ? jump(pc, code[pc + 3], fuel) : pc + 4;
+                    case JLTK -> pc = r[code[pc + 1]] < code[pc + 2] ? jump(pc, code[pc + 3], fuel) : pc + 4;
+                    case JGEK -> pc = r[code[pc + 1]] >= code[pc + 2] ? jump(pc, code[pc + 3], fuel) : pc + 4;
+                    case CHECK -> {
+                        if (r[code[pc + 1]] == 0)
+                            throw new NullPointerException("Nothing found for name: " + names[code[pc + 2]]);
+                        pc += 3;
+                    }
+                    default -> throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+                }
+            }
+        }
+
+        private static int jump(int pc, int target, Fuel fuel) {
+            if (target <= pc && fuel != null)
+                fuel.take();
+            return target;
+        }
+
+        byte[] serialize() {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(registers);
+                out.writeInt(names.length);
+                for (int i = 0; i < names.length; i++) {
+                    out.writeUTF(names[i]);
+                    out.writeByte(types[i].ordinal());
+                    out.writeBoolean(inputs[i]);
+                    out.writeInt(flags[i]);
+                }
+                out.writeInt(code.length);
+                for (int word : code)
+                    out.writeInt(word);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        /** Reads a program written by {@link #serialize}, rejecting anything {@link #run} could not run safely. */
+        static Program deserialize(byte[] bytes) {
+            try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                if (in.readInt() != MAGIC)
+                    throw new IllegalArgumentException("Not a register program");
+                int registers = in.readInt();
+                int n = in.readInt();
+                if (n < 0 || n > bytes.length)
+                    throw new IllegalArgumentException("Bad variable count: " + n);
+                if (registers < n)
+                    throw new IllegalArgumentException("Bad register count: " + registers);
+                var names = new String[n];
+                var types = new Analysis.Type[n];
+                var inputs = new boolean[n];
+                var flags = new int[n];
+                var kinds = Analysis.Type.values();
+                for (int i = 0; i < n; i++) {
+                    names[i] = in.readUTF();
+                    int type = in.readUnsignedByte();
+                    if (type >= kinds.length)
+                        throw new IllegalArgumentException("Bad type " + type + " for variable " + names[i]);
+                    types[i] = kinds[type];
+                    inputs[i] = in.readBoolean();
+                    flags[i] = in.readInt();
+                    if (flags[i] < -1 || flags[i] >= registers || flags[i] == -1 && inputs[i])
+                        throw new IllegalArgumentException("Bad flag register " + flags[i] + " for variable " + names[i]);
+                }
+                int length = in.readInt();
+                if (length < 0 || length > bytes.length / 4)
+                    throw new IllegalArgumentException("Bad code length: " + length);
+                var code = new int[length];
+                for (int i = 0; i < code.length; i++)
+                    code[i] = in.readInt();
+                verify(code, registers, n);
+                return new Program(code, registers, names, types, inputs, flags);
+            } catch (EOFException e) {
+                throw new IllegalArgumentException("Truncated register program");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void verify(int[] code, int registers, int variables) {
+            var starts = new boolean[code.length];
+            int last = -1;
+            for (int pc = 0; pc < code.length; pc += width(code[pc])) {
+                if (code[pc] < 0 || code[pc] >= OPERANDS.length)
+                    throw new IllegalArgumentException("Bad opcode " + code[pc] + " at " + pc);
+                if (pc + width(code[pc]) > code.length)
+                    throw new IllegalArgumentException("Truncated instruction at " + pc);
+                starts[pc] = true;
+                last = pc;
+            }
+            if (last < 0 || code[last] != HALT)
+                throw new IllegalArgumentException("Code does not end in HALT");
+            for (int pc = 0; pc < code.length; pc += width(code[pc])) {
+                var operands = OPERANDS[code[pc]];
+                for (int i = 0; i < operands.length(); i++) {
+                    int operand = code[pc + 1 + i];
+                    boolean valid = switch (operands.charAt(i)) {
+                        case 'r' -> operand >= 0 && operand < registers;
+                        case 't' -> operand >= 0 && operand < code.length && starts[operand];
+                        case 'v' -> operand >= 0 && operand < variables;
+                        default -> true;
+                    };
+                    if (!valid)
+                        throw new IllegalArgumentException("Bad operand " + operand + " of " + MNEMONICS[code[pc]] + " at " + pc);
+                }
+            }
+        }
+
+        String disassemble() {
+            var sb = new StringBuilder();
+            for (int pc = 0; pc < code.length; pc += width(code[pc])) {
+                sb.append(pc).append(": ").append(MNEMONICS[code[pc]]);
+                for (int i = 1; i < width(code[pc]); i++)
+                    sb.append(' ').append(code[pc + i]);
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override public String toString() {
+            return disassemble();
+        }
+    }
+
+    private static int width(int opcode) {
+        return 1 + OPERANDS[opcode].length();
+    }
+
+    private final Analysis analysis;
+    private final Resolver.Slots slots;
+    private final int[] flags;
+    private int[] code = new int[64];
+    private int size;
+    private int temporaries;
+    private int registers;
+    private boolean checkReads = true;
+
+    private RegisterCompiler(Analysis analysis, int[] flags, int registers) {
+        this.analysis = analysis;
+        this.slots = analysis.slots;
+        this.flags = flags;
+        this.temporaries = registers;
+        this.registers = registers;
+    }
+
+    static Program compile(Statement statement) {
+        var analysis = Analysis.analyze(statement);
+        var assigned = analysis.assigned();
+        var inputs = analysis.inputs();
+        int n = assigned.length;
+        var flags = new int[n];
+        int registers = n;
+        for (int i = 0; i < n; i++)
+            flags[i] = assigned[i] && !inputs[i] ? -1 : registers++;
+
+        var compiler = new RegisterCompiler(analysis, flags, registers);
+        compiler.statement(statement);
+        compiler.emit(HALT);
+        return new Program(Arrays.copyOf(compiler.code, compiler.size), compiler.registers,
+                analysis.names(), analysis.types(), inputs, flags);
+    }
+
+    private void statement(Statement statement) {
+        while (statement instanceof Sequence s) {
+            statement(s.first());
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a -> {
+                int slot = slots.slot(a.name());
+                expression(a.expression(), slot);
+                if (flags[slot] >= 0 && analysis.mayBeUnassigned(a))
+                    emit(CONST, flags[slot], 1);
+            }
+            case If i -> {
+                int otherwise = jumpIfFalse(i.condition());
+                statement(i.consequence());
+                emit(JUMP, -1);
+                int end = size - 1;
+                patch(otherwise, size);
+                statement(i.alternative());
+                patch(end, size);
+            }
+            case While w -> {
+                // body first, condition at the bottom: one branch per iteration. The condition's reads
+                // are checked once on entry; every later evaluation follows one that found them all.
+                checks(w.condition());
+                emit(JUMP, -1);
+                int toCondition = size - 1;
+                int body = size;
+                statement(w.body());
+                patch(toCondition, size);
+                checkReads = false;
+                jumpIfTrue(w.condition(), body);
+                checkReads = true;
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    /** Emits a branch taken when {@code condition} is false and returns the operand to patch. */
+    private int jumpIfFalse(Expression condition) {
+        int mark = temporaries;
+        switch (condition) {
+            case Bool b when b.value() -> {
+                return -1;
+            }
+            case Bool b -> emit(JUMP, -1);
+            case LessThan l when l.right() instanceof Number k -> emit(JGEK, register(l.left()), k.value(), -1);
+            case LessThan l -> emit(JGE, register(l.left()), register(l.right()), -1);
+            default -> emit(JZ, register(condition), -1);
+        }
+        temporaries = mark;
+        return size - 1;
+    }
+
+    private void jumpIfTrue(Expression condition, int target) {
+        int mark = temporaries;
+        switch (condition) {
+            case Bool b when !b.value() -> {
+            }
+            case Bool b -> emit(JUMP, target);
+            case LessThan l when l.right() instanceof Number k -> emit(JLTK, register(l.left()), k.value(), target);
+            case LessThan l -> emit(JLT, register(l.left()), register(l.right()), target);
+            default -> emit(JNZ, register(condition), target);
+        }
+        temporaries = mark;
+    }
+
+    private void checks(Expression expression) {
+        switch (expression) {
+            case Variable v -> check(v);
+            case Add a -> {
+                checks(a.left());
+                checks(a.right());
+            }
+            case Mult m -> {
+                checks(m.left());
+                checks(m.right());
+            }
+            case LessThan l -> {
+                checks(l.left());
+                checks(l.right());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void check(Variable variable) {
+        if (checkReads && analysis.mayBeUnassigned(variable)) {
+            int slot = slots.slot(variable.name());
+            emit(CHECK, flags[slot], slot);
+        }
+    }
+
+    /** Returns the register holding the value: the variable's own slot, or a fresh temporary. */
+    private int register(Expression expression) {
+        if (expression instanceof Variable v) {
+            check(v);
+            return slots.slot(v.name());
+        }
+        int target = temporaries;
+        expression(expression, target);
+        temporaries = target + 1;
+        registers = Math.max(registers, temporaries);
+        return target;
+    }
+
+    /** Computes {@code expression} into {@code target}; operands are read before target is written. */
+    private void expression(Expression expression, int target) {
+        int mark = temporaries;
+        switch (expression) {
+            case Number n -> emit(CONST, target, n.value());
+            case Bool b -> emit(CONST, target, b.value() ? 1 : 0);
+            case Variable v -> {
+                check(v);
+                int slot = slots.slot(v.name());
+                if (slot != target)
+                    emit(MOVE, target, slot);
+            }
+            case Add a when a.right() instanceof Number k -> emit(ADDK, target, register(a.left()), k.value());
+            case Add a when a.left() instanceof Number k -> emit(ADDK, target, register(a.right()), k.value());
+            case Add a -> emit(ADD, target, register(a.left()), register(a.right()));
+            case Mult m -> emit(MUL, target, register(m.left()), register(m.right()));
+            case LessThan l -> emit(LT, target, register(l.left()), register(l.right()));
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        }
+        temporaries = mark;
+    }
+
+    private void patch(int operand, int target) {
+        if (operand >= 0)
+            code[operand] = target;
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length)
+            code = Arrays.copyOf(code, Math.max(2 * code.length, size + words.length));
+        System.arraycopy(words, 0, code, size, words.length);
+        size += words.length;
+    }
+}
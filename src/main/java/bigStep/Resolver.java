@@ -0,0 +1,211 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static bigStep.BigStep.asNumber;
+
+/**
+ * Replaces variable names with dense slot numbers, so the resolved program runs
+ * against an {@code Expression[]} frame instead of hashing names on every access.
+ */
+class Resolver {
+
+    static final class Slots {
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        int slot(String name) {
+            return slots.computeIfAbsent(name, n -> slots.size());
+        }
+
+        int size() {
+            return slots.size();
+        }
+
+        String[] names() {
+            return slots.keySet().toArray(String[]::new);
+        }
+    }
+
+    static Program resolve(Statement statement) {
+        var slots = new Slots();
+        var code = statement(statement, slots);
+        return new Program(code, slots.names());
+    }
+
+    record Program(SlotStatement code, String[] names) {
+        Environment evaluate(Environment env) {
+            var frame = new Expression[names.length];
+            for (int i = 0; i < names.length; i++)
+                frame[i] = env.map.get(names[i]);
+
+            code.execute(frame);
+
+            var result = env.copy();
+            for (int i = 0; i < names.length; i++)
+                if (frame[i] != null)
+                    result.set(names[i], frame[i]);
+            return result;
+        }
+
+        @Override public String toString() {
+            return code.toString();
+        }
+    }
+
+    private static SlotStatement statement(Statement statement, Slots slots) {
+        return switch (statement) {
+            case DoNothing d -> new SlotDoNothing();
+            case Assignment a -> new SlotAssignment(slots.slot(a.name()), expression(a.expression(), slots));
+            case Sequence s -> new SlotSequence(statement(s.first(), slots), statement(s.second(), slots));
+            case If i -> new SlotIf(
+                    expression(i.condition(), slots),
+                    statement(i.consequence(), slots),
+                    statement(i.alternative(), slots));
+            case While w -> new SlotWhile(expression(w.condition(), slots), statement(w.body(), slots));
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+    }
+
+    private static SlotExpression expression(Expression expression, Slots slots) {
+        return switch (expression) {
+            case Number n -> new Constant(n);
+            case Bool b -> new Constant(b);
+            case Variable v -> new SlotVariable(v.name(), slots.slot(v.name()));
+            case Add a -> new SlotAdd(expression(a.left(), slots), expression(a.right(), slots));
+            case Mult m -> new SlotMult(expression(m.left(), slots), expression(m.right(), slots));
+            case LessThan l -> new SlotLessThan(expression(l.left(), slots), expression(l.right(), slots));
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+    }
+
+    interface SlotStatement {
+        void execute(Expression[] frame);
+    }
+
+    record SlotDoNothing() implements SlotStatement {
+        @Override public void execute(Expression[] frame) {
+        }
+
+        @Override public String toString() {
+            return "do-nothing";
+        }
+    }
+
+    record SlotAssignment(int slot, SlotExpression expression) implements SlotStatement {
+        @Override public void execute(Expression[] frame) {
+            frame[slot] = expression.evaluate(frame);
+        }
+
+        @Override public String toString() {
+            return String.format("$%d = %s", slot, expression);
+        }
+    }
+
+    record SlotSequence(SlotStatement first, SlotStatement second) implements SlotStatement {
+        @Override public void execute(Expression[] frame) {
+            first.execute(frame);
+            second.execute(frame);
+        }
+
+        @Override public String toString() {
+            return String.format("%s; %s", first, second);
+        }
+    }
+
+    record SlotIf(SlotExpression condition, SlotStatement consequence, SlotStatement alternative) implements SlotStatement {
+        @Override public void execute(Expression[] frame) {
+            if (asBool(condition.evaluate(frame)))
+                consequence.execute(frame);
+            else
+                alternative.execute(frame);
+        }
+
+        @Override public String toString() {
+            return String.format("if (%s) { %s } else { %s }", condition, consequence, alternative);
+        }
+    }
+
+    record SlotWhile(SlotExpression condition, SlotStatement body) implements SlotStatement {
+        @Override public void execute(Expression[] frame) {
+            while (asBool(condition.evaluate(frame)))
+                body.execute(frame);
+        }
+
+        @Override public String toString() {
+            return String.format("while ( %s ) { %s }", condition, body);
+        }
+    }
+
+    interface SlotExpression {
+        Expression evaluate(Expression[] frame);
+    }
+
+    record Constant(Expression value) implements SlotExpression {
+        @Override public Expression evaluate(Expression[] frame) {
+            return value;
+        }
+
+        @Override public String toString() {
+            return value.toString();
+        }
+    }
+
+    record SlotVariable(String name, int slot) implements SlotExpression {
+        @Override public Expression evaluate(Expression[] frame) {
+            var value = frame[slot];
+            if (value == null)
+                throw new NullPointerException("Nothing found for name: " + name);
+            return value;
+        }
+
+        @Override public String toString() {
+            return "$" + slot;
+        }
+    }
+
+    record SlotAdd(SlotExpression left, SlotExpression right) implements SlotExpression {
+        @Override public Expression evaluate(Expression[] frame) {
+            var l = left.evaluate(frame);
+            var r = right.evaluate(frame);
+            return asNumber(asNumber(l).value() + asNumber(r).value());
+        }
+
+        @Override public String toString() {
+            return String.format("%s + %s", left, right);
+        }
+    }
+
+    record SlotMult(SlotExpression left, SlotExpression right) implements SlotExpression {
+        @Override public Expression evaluate(Expression[] frame) {
+            var l = left.evaluate(frame);
+            var r = right.evaluate(frame);
+            return asNumber(asNumber(l).value() * asNumber(r).value());
+        }
+
+        @Override public String toString() {
+            return String.format("%s * %s", left, right);
+        }
+    }
+
+    record SlotLessThan(SlotExpression left, SlotExpression right) implements SlotExpression {
+        @Override public Expression evaluate(Expression[] frame) {
+            var l = left.evaluate(frame);
+            var r = right.evaluate(frame);
+            return Bool.of(asNumber(l).value() < asNumber(r).value());
+        }
+
+        @Override public String toString() {
+            return String.format("%s < %s", left, right);
+        }
+    }
+
+    private static boolean asBool(Expression result) {
+        if (result instanceof Bool b)
+            return b.value();
+        throw new IllegalStateException("Expected Bool, got: " + result);
+    }
+}
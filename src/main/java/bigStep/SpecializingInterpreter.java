@@ -0,0 +1,713 @@
+package bigStep;
+
+import bigStep.BigStep.*;
+import bigStep.BigStep.Number;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static bigStep.BigStep.asNumber;
+
+/**
+ * An AST interpreter whose nodes replace themselves with specialized versions as they learn what
+ * they run on. Every node starts uninitialized; on its first execution it looks at the values it
+ * actually got and rewrites itself:
+ * <ul>
+ *     <li>a variable caches its frame slot and becomes an {@code IntVariable} or {@code BoolVariable},</li>
+ *     <li>{@code +}, {@code *} and {@code <} over ints become {@code IntAdd}, {@code IntMult} and
+ *     {@code IntLessThan}, which pass unboxed ints between nodes,</li>
+ *     <li>an operation on two constants becomes a {@code Constant} holding the result,</li>
+ *     <li>an assignment becomes an {@code IntAssign} or {@code BoolAssign} into its slot.</li>
+ * </ul>
+ * A specialized node that meets a value of another type rewrites itself to the generic version, which
+ * works on boxed values like {@link Statement#evaluate}, and stays generic from then on.
+ * <p>
+ * Variables live in a frame of {@code int}s with a tag per slot. A program keeps its specializations
+ * from run to run; it must not be run by two threads at once.
+ */
+class SpecializingInterpreter {
+
+    static Program prepare(Statement statement) {
+        var layout = new Layout();
+        var root = new Root(statement(statement, layout));
+        return new Program(root, layout);
+    }
+
+    static final class Program {
+        private final Root root;
+        private final Layout layout;
+
+        private Program(Root root, Layout layout) {
+            this.root = root;
+            this.layout = layout;
+        }
+
+        Environment evaluate(Environment env) {
+            var names = layout.names();
+            var frame = new Frame(names.length);
+            for (int i = 0; i < names.length; i++) {
+                var value = env.map.get(names[i]);
+                if (value != null)
+                    frame.set(i, value);
+            }
+
+            root.body.execute(frame);
+
+            var result = env.copy();
+            for (int i = 0; i < names.length; i++)
+                if (frame.tags[i] != Frame.UNSET)
+                    result.set(names[i], frame.get(i, names[i]));
+            return result;
+        }
+
+        /** The node tree in its current state of specialization. */
+        @Override public String toString() {
+            return root.body.toString();
+        }
+    }
+
+    /** Slots of the program's variables; nodes look their slot up once and keep it. */
+    private static final class Layout {
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        int slot(String name) {
+            return slots.computeIfAbsent(name, n -> slots.size());
+        }
+
+        String[] names() {
+            return slots.keySet().toArray(String[]::new);
+        }
+    }
+
+    private static final class Frame {
+        static final byte UNSET = 0;
+        static final byte INT = 1;
+        static final byte BOOL = 2;
+
+        final int[] values;
+        final byte[] tags;
+
+        Frame(int size) {
+            values = new int[size];
+            tags = new byte[size];
+        }
+
+        Expression get(int slot, String name) {
+            return switch (tags[slot]) {
+                case INT -> asNumber(values[slot]);
+                case BOOL -> Bool.of(values[slot] != 0);
+                default -> throw new NullPointerException("Nothing found for name: " + name);
+            };
+        }
+
+        void set(int slot, Expression value) {
+            switch (value) {
+                case Number n -> setInt(slot, n.value());
+                case Bool b -> setBool(slot, b.value());
+                default -> throw new IllegalArgumentException("Not a value: " + value);
+            }
+        }
+
+        void setInt(int slot, int value) {
+            values[slot] = value;
+            tags[slot] = INT;
+        }
+
+        void setBool(int slot, boolean value) {
+            values[slot] = value ? 1 : 0;
+            tags[slot] = BOOL;
+        }
+    }
+
+    /** Thrown by a typed execute method whose node produced a value of another type. */
+    private static final class UnexpectedResult extends RuntimeException {
+        final Expression value;
+
+        UnexpectedResult(Expression value) {
+            super(null, null, false, false);
+            this.value = value;
+        }
+    }
+
+    private static StatementNode statement(Statement statement, Layout layout) {
+        var statements = new ArrayList<StatementNode>();
+        while (statement instanceof Sequence s) {
+            statements.add(statement(s.first(), layout));
+            statement = s.second();
+        }
+        if (!(statement instanceof DoNothing))
+            statements.add(simple(statement, layout));
+        return statements.size() == 1 ? statements.getFirst() : new Block(statements.toArray(StatementNode[]::new));
+    }
+
+    private static StatementNode simple(Statement statement, Layout layout) {
+        return switch (statement) {
+            case Assignment a -> {
+                layout.slot(a.name());
+                yield new UninitializedAssign(layout, a.name(), expression(a.expression(), layout));
+            }
+            case If i -> new IfNode(expression(i.condition(), layout), statement(i.consequence(), layout), statement(i.alternative(), layout));
+            case While w -> new WhileNode(expression(w.condition(), layout), statement(w.body(), layout));
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+    }
+
+    private static ExpressionNode expression(Expression expression, Layout layout) {
+        return switch (expression) {
+            case Number n -> new IntConstant(n.value());
+            case Bool b -> new BoolConstant(b.value());
+            case Variable v -> {
+                layout.slot(v.name());
+                yield new UninitializedVariable(layout, v.name());
+            }
+            case Add a -> new UninitializedBinary(Operator.ADD, expression(a.left(), layout), expression(a.right(), layout));
+            case Mult m -> new UninitializedBinary(Operator.MULT, expression(m.left(), layout), expression(m.right(), layout));
+            case LessThan l -> new UninitializedBinary(Operator.LESS_THAN, expression(l.left(), layout), expression(l.right(), layout));
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+    }
+
+    private abstract static class Node {
+        Node parent;
+
+        <T extends Node> T adopt(T child) {
+            child.parent = this;
+            return child;
+        }
+
+        <T extends Node> T replace(T node) {
+            parent.replaceChild(this, node);
+            parent.adopt(node);
+            return node;
+        }
+
+        void replaceChild(Node oldChild, Node newChild) {
+            throw new IllegalStateException(getClass().getSimpleName() + " has no children");
+        }
+    }
+
+    private static final class Root extends Node {
+        StatementNode body;
+
+        Root(StatementNode body) {
+            this.body = adopt(body);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            body = (StatementNode) newChild;
+        }
+    }
+
+    // expressions
+
+    private abstract static class ExpressionNode extends Node {
+        abstract Expression execute(Frame frame);
+
+        int executeInt(Frame frame) {
+            var value = execute(frame);
+            if (value instanceof Number n)
+                return n.value();
+            throw new UnexpectedResult(value);
+        }
+
+        boolean executeBool(Frame frame) {
+            var value = execute(frame);
+            if (value instanceof Bool b)
+                return b.value();
+            throw new UnexpectedResult(value);
+        }
+    }
+
+    private static final class IntConstant extends ExpressionNode {
+        final int value;
+
+        IntConstant(int value) {
+            this.value = value;
+        }
+
+        @Override Expression execute(Frame frame) {
+            return asNumber(value);
+        }
+
+        @Override int executeInt(Frame frame) {
+            return value;
+        }
+
+        @Override public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    private static final class BoolConstant extends ExpressionNode {
+        final boolean value;
+
+        BoolConstant(boolean value) {
+            this.value = value;
+        }
+
+        @Override Expression execute(Frame frame) {
+            return Bool.of(value);
+        }
+
+        @Override boolean executeBool(Frame frame) {
+            return value;
+        }
+
+        @Override public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    private static final class UninitializedVariable extends ExpressionNode {
+        final Layout layout;
+        final String name;
+
+        UninitializedVariable(Layout layout, String name) {
+            this.layout = layout;
+            this.name = name;
+        }
+
+        @Override Expression execute(Frame frame) {
+            int slot = layout.slot(name);
+            var node = switch (frame.tags[slot]) {
+                case Frame.INT -> replace(new IntVariable(name, slot));
+                case Frame.BOOL -> replace(new BoolVariable(name, slot));
+                default -> throw new NullPointerException("Nothing found for name: " + name);
+            };
+            return node.execute(frame);
+        }
+
+        @Override public String toString() {
+            return "?" + name;
+        }
+    }
+
+    private static final class IntVariable extends ExpressionNode {
+        final String name;
+        final int slot;
+
+        IntVariable(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override Expression execute(Frame frame) {
+            if (frame.tags[slot] == Frame.INT)
+                return asNumber(frame.values[slot]);
+            return replace(new GenericVariable(name, slot)).execute(frame);
+        }
+
+        @Override int executeInt(Frame frame) {
+            if (frame.tags[slot] == Frame.INT)
+                return frame.values[slot];
+            throw new UnexpectedResult(replace(new GenericVariable(name, slot)).execute(frame));
+        }
+
+        @Override public String toString() {
+            return "int " + name;
+        }
+    }
+
+    private static final class BoolVariable extends ExpressionNode {
+        final String name;
+        final int slot;
+
+        BoolVariable(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override Expression execute(Frame frame) {
+            if (frame.tags[slot] == Frame.BOOL)
+                return Bool.of(frame.values[slot] != 0);
+            return replace(new GenericVariable(name, slot)).execute(frame);
+        }
+
+        @Override boolean executeBool(Frame frame) {
+            if (frame.tags[slot] == Frame.BOOL)
+                return frame.values[slot] != 0;
+            throw new UnexpectedResult(replace(new GenericVariable(name, slot)).execute(frame));
+        }
+
+        @Override public String toString() {
+            return "bool " + name;
+        }
+    }
+
+    private static final class GenericVariable extends ExpressionNode {
+        final String name;
+        final int slot;
+
+        GenericVariable(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override Expression execute(Frame frame) {
+            return frame.get(slot, name);
+        }
+
+        @Override public String toString() {
+            return name;
+        }
+    }
+
+    private enum Operator {
+        ADD("+"), MULT("*"), LESS_THAN("<");
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        Expression apply(Expression left, Expression right) {
+            return switch (this) {
+                case ADD -> asNumber(asNumber(left).value() + asNumber(right).value());
+                case MULT -> asNumber(asNumber(left).value() * asNumber(right).value());
+                case LESS_THAN -> Bool.of(asNumber(left).value() < asNumber(right).value());
+            };
+        }
+    }
+
+    private abstract static class BinaryNode extends ExpressionNode {
+        final Operator operator;
+        ExpressionNode left;
+        ExpressionNode right;
+
+        BinaryNode(Operator operator, ExpressionNode left, ExpressionNode right) {
+            this.operator = operator;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            if (left == oldChild)
+                left = (ExpressionNode) newChild;
+            else if (right == oldChild)
+                right = (ExpressionNode) newChild;
+        }
+
+        ExpressionNode generalize() {
+            return replace(new GenericBinary(operator, left, right));
+        }
+
+        String show(String kind) {
+            return String.format("%s(%s %s %s)", kind, left, operator.symbol, right);
+        }
+    }
+
+    private static final class UninitializedBinary extends BinaryNode {
+        UninitializedBinary(Operator operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override Expression execute(Frame frame) {
+            var l = left.execute(frame);
+            var r = right.execute(frame);
+            var result = operator.apply(l, r);
+            if (left instanceof IntConstant && right instanceof IntConstant) {
+                if (result instanceof Number n)
+                    replace(new IntConstant(n.value()));
+                else
+                    replace(new BoolConstant(((Bool) result).value()));
+            } else {
+                replace(switch (operator) {
+                    case ADD -> new IntAdd(left, right);
+                    case MULT -> new IntMult(left, right);
+                    case LESS_THAN -> new IntLessThan(left, right);
+                });
+            }
+            return result;
+        }
+
+        @Override public String toString() {
+            return show("?");
+        }
+    }
+
+    private static final class IntAdd extends BinaryNode {
+        IntAdd(ExpressionNode left, ExpressionNode right) {
+            super(Operator.ADD, left, right);
+        }
+
+        @Override Expression execute(Frame frame) {
+            return asNumber(executeInt(frame));
+        }
+
+        @Override int executeInt(Frame frame) {
+            try {
+                return left.executeInt(frame) + right.executeInt(frame);
+            } catch (UnexpectedResult e) {
+                return asNumber(generalize().execute(frame)).value();
+            }
+        }
+
+        @Override public String toString() {
+            return show("int");
+        }
+    }
+
+    private static final class IntMult extends BinaryNode {
+        IntMult(ExpressionNode left, ExpressionNode right) {
+            super(Operator.MULT, left, right);
+        }
+
+        @Override Expression execute(Frame frame) {
+            return asNumber(executeInt(frame));
+        }
+
+        @Override int executeInt(Frame frame) {
+            try {
+                return left.executeInt(frame) * right.executeInt(frame);
+            } catch (UnexpectedResult e) {
+                return asNumber(generalize().execute(frame)).value();
+            }
+        }
+
+        @Override public String toString() {
+            return show("int");
+        }
+    }
+
+    private static final class IntLessThan extends BinaryNode {
+        IntLessThan(ExpressionNode left, ExpressionNode right) {
+            super(Operator.LESS_THAN, left, right);
+        }
+
+        @Override Expression execute(Frame frame) {
+            return Bool.of(executeBool(frame));
+        }
+
+        @Override boolean executeBool(Frame frame) {
+            try {
+                return left.executeInt(frame) < right.executeInt(frame);
+            } catch (UnexpectedResult e) {
+                return ((Bool) generalize().execute(frame)).value();
+            }
+        }
+
+        @Override public String toString() {
+            return show("int");
+        }
+    }
+
+    private static final class GenericBinary extends BinaryNode {
+        GenericBinary(Operator operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override Expression execute(Frame frame) {
+            return operator.apply(left.execute(frame), right.execute(frame));
+        }
+
+        @Override public String toString() {
+            return show("");
+        }
+    }
+
+    // statements
+
+    private abstract static class StatementNode extends Node {
+        abstract void execute(Frame frame);
+    }
+
+    private static final class Block extends StatementNode {
+        final StatementNode[] statements;
+
+        Block(StatementNode[] statements) {
+            this.statements = statements;
+            for (var statement : statements)
+                adopt(statement);
+        }
+
+        @Override void execute(Frame frame) {
+            for (var statement : statements)
+                statement.execute(frame);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < statements.length; i++)
+                if (statements[i] == oldChild)
+                    statements[i] = (StatementNode) newChild;
+        }
+
+        @Override public String toString() {
+            if (statements.length == 0)
+                return "do-nothing";
+            var sb = new StringBuilder();
+            for (var statement : statements) {
+                if (!sb.isEmpty())
+                    sb.append("; ");
+                sb.append(statement);
+            }
+            return sb.toString();
+        }
+    }
+
+    private abstract static class AssignNode extends StatementNode {
+        final String name;
+        ExpressionNode value;
+
+        AssignNode(String name, ExpressionNode value) {
+            this.name = name;
+            this.value = adopt(value);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            value = (ExpressionNode) newChild;
+        }
+
+        String show(String kind) {
+            return String.format("%s%s = %s", kind, name, value);
+        }
+    }
+
+    private static final class UninitializedAssign extends AssignNode {
+        final Layout layout;
+
+        UninitializedAssign(Layout layout, String name, ExpressionNode value) {
+            super(name, value);
+            this.layout = layout;
+        }
+
+        @Override void execute(Frame frame) {
+            int slot = layout.slot(name);
+            var result = value.execute(frame);
+            frame.set(slot, result);
+            replace(result instanceof Number ? new IntAssign(name, slot, value) : new BoolAssign(name, slot, value));
+        }
+
+        @Override public String toString() {
+            return show("?");
+        }
+    }
+
+    private static final class IntAssign extends AssignNode {
+        final int slot;
+
+        IntAssign(String name, int slot, ExpressionNode value) {
+            super(name, value);
+            this.slot = slot;
+        }
+
+        @Override void execute(Frame frame) {
+            try {
+                frame.setInt(slot, value.executeInt(frame));
+            } catch (UnexpectedResult e) {
+                frame.set(slot, e.value);
+                replace(new GenericAssign(name, slot, value));
+            }
+        }
+
+        @Override public String toString() {
+            return show("int ");
+        }
+    }
+
+    private static final class BoolAssign extends AssignNode {
+        final int slot;
+
+        BoolAssign(String name, int slot, ExpressionNode value) {
+            super(name, value);
+            this.slot = slot;
+        }
+
+        @Override void execute(Frame frame) {
+            try {
+                frame.setBool(slot, value.executeBool(frame));
+            } catch (UnexpectedResult e) {
+                frame.set(slot, e.value);
+                replace(new GenericAssign(name, slot, value));
+            }
+        }
+
+        @Override public String toString() {
+            return show("bool ");
+        }
+    }
+
+    private static final class GenericAssign extends AssignNode {
+        final int slot;
+
+        GenericAssign(String name, int slot, ExpressionNode value) {
+            super(name, value);
+            this.slot = slot;
+        }
+
+        @Override void execute(Frame frame) {
+            frame.set(slot, value.execute(frame));
+        }
+
+        @Override public String toString() {
+            return show("");
+        }
+    }
+
+    private static boolean condition(ExpressionNode condition, Frame frame) {
+        try {
+            return condition.executeBool(frame);
+        } catch (UnexpectedResult e) {
+            throw new IllegalStateException("Expected Bool, got: " + e.value);
+        }
+    }
+
+    private static final class IfNode extends StatementNode {
+        ExpressionNode condition;
+        StatementNode consequence;
+        StatementNode alternative;
+
+        IfNode(ExpressionNode condition, StatementNode consequence, StatementNode alternative) {
+            this.condition = adopt(condition);
+            this.consequence = adopt(consequence);
+            this.alternative = adopt(alternative);
+        }
+
+        @Override void execute(Frame frame) {
+            if (condition(condition, frame))
+                consequence.execute(frame);
+            else
+                alternative.execute(frame);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            if (condition == oldChild)
+                condition = (ExpressionNode) newChild;
+            else if (consequence == oldChild)
+                consequence = (StatementNode) newChild;
+            else if (alternative == oldChild)
+                alternative = (StatementNode) newChild;
+        }
+
+        @Override public String toString() {
+            return String.format("if (%s) { %s } else { %s }", condition, consequence, alternative);
+        }
+    }
+
+    private static final class WhileNode extends StatementNode {
+        ExpressionNode condition;
+        StatementNode body;
+
+        WhileNode(ExpressionNode condition, StatementNode body) {
+            this.condition = adopt(condition);
+            this.body = adopt(body);
+        }
+
+        @Override void execute(Frame frame) {
+            while (condition(condition, frame))
+                body.execute(frame);
+        }
+
+        @Override void replaceChild(Node oldChild, Node newChild) {
+            if (condition == oldChild)
+                condition = (ExpressionNode) newChild;
+            else if (body == oldChild)
+                body = (StatementNode) newChild;
+        }
+
+        @Override public String toString() {
+            return String.format("while ( %s ) { %s }", condition, body);
+        }
+    }
+}
@@ -1,34 +1,46 @@
 package denotational;
 
 
+import runtime.Fuel;
+import runtime.PersistentMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 class Denotational {
 
     static class Environment {
-        final Map<String, Expression> map;
+        PersistentMap<String, Expression> map;
+
+        Environment(PersistentMap<String, Expression> map) {this.map = map;}
 
-        Environment(Map<String, Expression> map) {this.map = map;}
+        Environment(Map<String, Expression> map) {this(PersistentMap.copyOf(map));}
 
         public Environment() {
-            this(new HashMap<>());
+            this(PersistentMap.empty());
         }
 
         void set(String name, Expression value) {
-            map.put(name, value);
+            map = map.put(name, value);
         }
 
         Expression get(String name) {
-            return Objects.requireNonNull(
-                    map.get(name),
-                    "Nothing found for name: " + name
-            );
+            var value = map.get(name);
+            if (value == null)
+                throw new NullPointerException("Nothing found for name: " + name);
+            return value;
         }
 
         public Environment copy() {
-            return new Environment(new HashMap<>(map));
+            return new Environment(map);
         }
 
         @Override public String toString() {
@@ -36,11 +48,367 @@ class Denotational {
         }
     }
 
+    static final class Interpreter {
+        private final Deque<Statement> stack = new ArrayDeque<>();
+        private Environment env;
+
+        Interpreter(Statement statement, Environment env) {
+            this.stack.push(statement);
+            this.env = env;
+        }
+
+        static Environment evaluate(Statement statement, Environment env) {
+            return new Interpreter(statement, env).run();
+        }
+
+        static Outcome evaluate(Statement statement, Environment env, Fuel fuel) {
+            return new Interpreter(statement, env).run(fuel);
+        }
+
+        /** Runs to the end without taking fuel. */
+        Environment run() {
+            return ((Finished) execute(null)).environment();
+        }
+
+        /** Runs until the program ends or {@code fuel}, taken once per loop iteration, runs out. */
+        Outcome run(Fuel fuel) {
+            return execute(Objects.requireNonNull(fuel));
+        }
+
+        private Outcome execute(Fuel fuel) {
+            while (!stack.isEmpty()) {
+                switch (stack.pop()) {
+                    case Sequence s -> {
+                        stack.push(s.second());
+                        stack.push(s.first());
+                    }
+                    case If i -> stack.push(i.condition().evalBool(env) ? i.consequence() : i.alternative());
+                    case While w -> {
+                        if (fuel != null && !fuel.consume()) {
+                            stack.push(w);
+                            return new OutOfFuel(this);
+                        }
+                        if (w.condition().evalBool(env)) {
+                            stack.push(w);
+                            stack.push(w.body());
+                        }
+                    }
+                    case Statement s -> env = s.evaluate(env);
+                }
+            }
+            return new Finished(env);
+        }
+
+        Environment environment() {
+            return env;
+        }
+
+        sealed interface Outcome {}
+
+        record Finished(Environment environment) implements Outcome {}
+
+        /** A paused run; the interpreter keeps its stack and environment until it is resumed. */
+        record OutOfFuel(Interpreter interpreter) implements Outcome {
+            Outcome resume(Fuel fuel) {
+                return interpreter.run(fuel);
+            }
+        }
+    }
+
+    interface Code {
+        void run(int[] state);
+    }
+
+    interface IntCode {
+        int apply(int[] state);
+    }
+
+    interface BoolCode {
+        BoolCode TRUE = state -> true;
+        BoolCode FALSE = state -> false;
+
+        boolean apply(int[] state);
+    }
+
+    /**
+     * How a variable is kept in the int state: Numbers as they are, Bools as 0/1, and values of a
+     * type the program does not determine as an index into the values boxed when the run starts.
+     */
+    enum Type {
+        NUMBER, BOOL, BOXED;
+
+        int encode(Expression value, List<Expression> boxes) {
+            return switch (this) {
+                case NUMBER -> asNumber(value).value();
+                case BOOL -> asBool(value).value() ? 1 : 0;
+                case BOXED -> {
+                    boxes.add(value);
+                    yield boxes.size() - 1;
+                }
+            };
+        }
+
+        Expression decode(int value, List<Expression> boxes) {
+            return switch (this) {
+                case NUMBER -> asNumber(value);
+                case BOOL -> Bool.of(value != 0);
+                case BOXED -> boxes.get(value);
+            };
+        }
+    }
+
+    /**
+     * Slot numbers and static types of the variables of a program. Types are inferred over the
+     * whole program before it is compiled: operands of arithmetic are Numbers, conditions are Bools,
+     * and {@code y = x} gives {@code y} the type of {@code x}. A variable is either always a Number
+     * or always a Bool; one that nothing constrains, like a copy of an input, is {@link Type#BOXED}.
+     * {@code inputs} are the variables that may be read before the program assigns them; only
+     * those are taken from the environment. A read of a variable that is not definitely assigned
+     * at that point checks at run time that it has a value, as {@code Environment.get} does.
+     */
+    static final class Slots {
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private final Map<String, String> parents = new HashMap<>();
+        private final Map<String, Type> types = new HashMap<>();
+        private final Set<String> inputs = new HashSet<>();
+        private Set<String> assigned = new HashSet<>();
+        private final Fuel fuel;
+
+        Slots(Statement program, Fuel fuel) {
+            this.fuel = fuel;
+            infer(program);
+        }
+
+        /** The fuel loops take a step from on every iteration, or null when they run unbounded. */
+        Fuel fuel() {
+            return fuel;
+        }
+
+        int read(String name) {
+            if (!assigned.contains(name))
+                inputs.add(name);
+            return slot(name);
+        }
+
+        int write(String name) {
+            assigned.add(name);
+            return slot(name);
+        }
+
+        /** Code reading {@code name}, failing like {@code Environment.get} if it may have no value. */
+        IntCode load(String name) {
+            boolean definite = assigned.contains(name);
+            int slot = read(name);
+            if (definite)
+                return state -> state[slot];
+            return state -> {
+                if (state[(state.length >> 1) + slot] == 0)
+                    throw new NullPointerException("Nothing found for name: " + name);
+                return state[slot];
+            };
+        }
+
+        boolean isAssigned(String name) {
+            return assigned.contains(name);
+        }
+
+        Type type(String name) {
+            return types.getOrDefault(find(name), Type.BOXED);
+        }
+
+        private int slot(String name) {
+            return slots.computeIfAbsent(name, n -> slots.size());
+        }
+
+        Set<String> assigned() {
+            return new HashSet<>(assigned);
+        }
+
+        void assigned(Set<String> assigned) {
+            this.assigned = assigned;
+        }
+
+        private void infer(Statement statement) {
+            while (statement instanceof Sequence s) {
+                infer(s.first());
+                statement = s.second();
+            }
+            switch (statement) {
+                case Assignment a when unwrap(a.expression()) instanceof Variable v -> union(a.name(), v.name());
+                case Assignment a -> {
+                    infer(a.expression(), null);
+                    var type = typeOf(unwrap(a.expression()));
+                    if (type != null)
+                        constrain(a.name(), type);
+                }
+                case If i -> {
+                    infer(i.condition(), Type.BOOL);
+                    infer(i.consequence());
+                    infer(i.alternative());
+                }
+                case While w -> {
+                    infer(w.condition(), Type.BOOL);
+                    infer(w.body());
+                }
+                case Wrapper<?> w -> infer((Statement) w.wrapped());
+                default -> {
+                }
+            }
+        }
+
+        private void infer(Expression expression, Type expected) {
+            switch (unwrap(expression)) {
+                case Variable v when expected != null -> constrain(v.name(), expected);
+                case Add a -> {
+                    infer(a.left(), Type.NUMBER);
+                    infer(a.right(), Type.NUMBER);
+                }
+                case Mult m -> {
+                    infer(m.left(), Type.NUMBER);
+                    infer(m.right(), Type.NUMBER);
+                }
+                case LessThan l -> {
+                    infer(l.left(), Type.NUMBER);
+                    infer(l.right(), Type.NUMBER);
+                }
+                default -> {
+                }
+            }
+        }
+
+        private static Type typeOf(Expression expression) {
+            return switch (expression) {
+                case Number n -> Type.NUMBER;
+                case Add a -> Type.NUMBER;
+                case Mult m -> Type.NUMBER;
+                case Bool b -> Type.BOOL;
+                case LessThan l -> Type.BOOL;
+                default -> null;
+            };
+        }
+
+        private static Expression unwrap(Expression expression) {
+            while (expression instanceof Wrapper<?> w)
+                expression = (Expression) w.wrapped();
+            return expression;
+        }
+
+        private String find(String name) {
+            var parent = parents.get(name);
+            if (parent == null)
+                return name;
+            var root = find(parent);
+            parents.put(name, root);
+            return root;
+        }
+
+        private void constrain(String name, Type type) {
+            var previous = types.putIfAbsent(find(name), type);
+            if (previous != null && previous != type)
+                throw new IllegalStateException("Variable is used as both Number and Bool: " + name);
+        }
+
+        private void union(String name, String other) {
+            var root = find(name);
+            var otherRoot = find(other);
+            if (root.equals(otherRoot))
+                return;
+            parents.put(root, otherRoot);
+            var type = types.remove(root);
+            if (type != null)
+                constrain(otherRoot, type);
+        }
+    }
+
+    /**
+     * A statement compiled to Java functions over an {@code int[]} state: one slot per variable,
+     * followed by one "written" flag per variable. Only {@link #evaluate} sees Environments.
+     */
+    record Compiled(Code code, String[] names, Type[] types, boolean[] inputs) {
+        static Compiled of(Statement statement, Fuel fuel) {
+            var slots = new Slots(statement, fuel);
+            var code = statement.compile(slots);
+            var names = slots.slots.keySet().toArray(String[]::new);
+            var types = new Type[names.length];
+            var inputs = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                types[i] = slots.type(names[i]);
+                inputs[i] = slots.inputs.contains(names[i]);
+            }
+            return new Compiled(code, names, types, inputs);
+        }
+
+        Environment evaluate(Environment env) {
+            int n = names.length;
+            var state = new int[2 * n];
+            var boxes = new ArrayList<Expression>();
+            for (int i = 0; i < n; i++) {
+                // variables the program writes before reading keep whatever the environment had until then
+                var value = inputs[i] ? env.map.get(names[i]) : null;
+                if (value == null)
+                    continue;
+                state[i] = types[i].encode(value, boxes);
+                state[n + i] = 1;
+            }
+
+            code.run(state);
+
+            var result = env.copy();
+            for (int i = 0; i < n; i++)
+                if (state[n + i] != 0)
+                    result.set(names[i], types[i].decode(state[i], boxes));
+            return result;
+        }
+    }
+
+    /**
+     * A node that runs another one of the same kind with something added around it, such as a
+     * {@link Profiler} node. The analyses of {@link Slots} look through it to the wrapped node.
+     */
+    interface Wrapper<T> {
+        T wrapped();
+    }
+
     interface Statement {
         Environment evaluate(Environment env);
 
         String toJS();
 
+        default String toImperativeJS() {
+            return ImperativeJs.toJS(this);
+        }
+
+        Code compile(Slots slots);
+
+        default Compiled compile() {
+            return Compiled.of(this, null);
+        }
+
+        /**
+         * Like {@link #compile()}, but every loop iteration takes a step from {@code fuel}; a run that
+         * finds none left throws {@link Fuel.ExhaustedException}.
+         */
+        default Compiled compile(Fuel fuel) {
+            return Compiled.of(this, Objects.requireNonNull(fuel));
+        }
+    }
+
+    record DoNothing() implements Statement {
+        @Override public Environment evaluate(Environment env) {
+            return env;
+        }
+
+        @Override public String toJS() {
+            return "(e) => { return e; }";
+        }
+
+        @Override public Code compile(Slots slots) {
+            return state -> {};
+        }
+
+        @Override public String toString() {
+            return "do-nothing";
+        }
     }
 
     record Assignment(String name, Expression expression) implements Statement {
@@ -54,6 +422,24 @@ class Denotational {
             return String.format("(e) => { const n_e = new Map(e); n_e.set('%s', ((%s)(e))); return n_e; }", name, expression.toJS());
         }
 
+        @Override public Code compile(Slots slots) {
+            if (slots.type(name) == Type.BOOL) {
+                var value = expression.compileBool(slots);
+                int slot = slots.write(name);
+                return state -> {
+                    state[slot] = value.apply(state) ? 1 : 0;
+                    state[(state.length >> 1) + slot] = 1;
+                };
+            }
+            // a BOXED variable is only ever copied, and the int slot copies its box index
+            var value = expression.compileInt(slots);
+            int slot = slots.write(name);
+            return state -> {
+                state[slot] = value.apply(state);
+                state[(state.length >> 1) + slot] = 1;
+            };
+        }
+
         @Override public String toString() {
             return String.format("%s = %s", name, expression);
         }
@@ -70,6 +456,26 @@ class Denotational {
             return String.format("(e) => { return (%s)((%s)(e)) }", second.toJS(), first.toJS());
         }
 
+        @Override public Code compile(Slots slots) {
+            var codes = new ArrayList<Code>();
+            var pending = new ArrayDeque<Statement>();
+            pending.push(this);
+            while (!pending.isEmpty()) {
+                var statement = pending.pop();
+                if (statement instanceof Sequence sequence) {
+                    pending.push(sequence.second);
+                    pending.push(sequence.first);
+                } else {
+                    codes.add(statement.compile(slots));
+                }
+            }
+            var array = codes.toArray(Code[]::new);
+            return state -> {
+                for (var code : array)
+                    code.run(state);
+            };
+        }
+
         @Override public String toString() {
             return String.format("%s; %s", first, second);
         }
@@ -77,13 +483,7 @@ class Denotational {
 
     record If(Expression condition, Statement consequence, Statement alternative) implements Statement {
         @Override public Environment evaluate(Environment env) {
-            var result = condition.evaluate(env);
-            if (result.equals(new Bool(true)))
-                return consequence.evaluate(env);
-
-            if (result.equals(new Bool(false)))
-                return alternative.evaluate(env);
-            throw new IllegalStateException("Expected Bool, got: " + result);
+            return condition.evalBool(env) ? consequence.evaluate(env) : alternative.evaluate(env);
         }
 
         @Override public String toJS() {
@@ -95,6 +495,26 @@ class Denotational {
                                  "}", condition.toJS(), consequence.toJS(), alternative.toJS());
         }
 
+        @Override public Code compile(Slots slots) {
+            if (condition instanceof Bool(var value))
+                return value ? consequence.compile(slots) : alternative.compile(slots);
+
+            var test = condition.compileBool(slots);
+            var before = slots.assigned();
+            var then = consequence.compile(slots);
+            var afterThen = slots.assigned();
+            slots.assigned(before);
+            var otherwise = alternative.compile(slots);
+            afterThen.retainAll(slots.assigned());
+            slots.assigned(afterThen);
+            return state -> {
+                if (test.apply(state))
+                    then.run(state);
+                else
+                    otherwise.run(state);
+            };
+        }
+
         @Override public String toString() {
             return String.format("if (%s) { %s } else { %s }", condition, consequence, alternative);
         }
@@ -102,18 +522,42 @@ class Denotational {
 
     record While(Expression condition, Statement body) implements Statement {
 
+        /**
+         * Loops until the condition is false, however long that takes: the recursive evaluator takes
+         * no fuel. {@link Interpreter#evaluate(Statement, Environment, Fuel)} is the bounded form.
+         */
         @Override public Environment evaluate(Environment env) {
-            var result = condition.evaluate(env);
-            if (result.equals(new Bool(false)))
-                return env;
-            var new_env = body.evaluate(env);
-            return this.evaluate(new_env);
+            while (condition.evalBool(env))
+                env = body.evaluate(env);
+            return env;
         }
 
         @Override public String toJS() {
             return String.format(" (e) => { while( ((%s)(e)) ) {  e = ((%s)(e)); } return e; }", condition.toJS(), body.toJS());
         }
 
+        @Override public Code compile(Slots slots) {
+            if (condition instanceof Bool(var value) && !value)
+                return state -> {};
+
+            var test = condition.compileBool(slots);
+            var before = slots.assigned();
+            var loop = body.compile(slots);
+            slots.assigned(before);
+            var fuel = slots.fuel();
+            if (fuel != null)
+                return state -> {
+                    while (test.apply(state)) {
+                        fuel.take();
+                        loop.run(state);
+                    }
+                };
+            return state -> {
+                while (test.apply(state))
+                    loop.run(state);
+            };
+        }
+
         @Override public String toString() {
             return String.format("while ( %s ) { %s }", condition, body);
         }
@@ -123,7 +567,22 @@ class Denotational {
     interface Expression {
         Expression evaluate(Environment env);
 
+        default int evalInt(Environment env) {
+            return asNumber(evaluate(env)).value;
+        }
+
+        default boolean evalBool(Environment env) {
+            var result = evaluate(env);
+            if (result instanceof Bool b)
+                return b.value;
+            throw new IllegalStateException("Expected Bool, got: " + result);
+        }
+
         String toJS();
+
+        IntCode compileInt(Slots slots);
+
+        BoolCode compileBool(Slots slots);
     }
 
     record Number(int value) implements Expression {
@@ -131,20 +590,51 @@ class Denotational {
             return this;
         }
 
+        @Override public int evalInt(Environment env) {
+            return value;
+        }
+
         @Override public String toJS() {
             return String.format("(e) => { return %s; }", value);
         }
 
+        @Override public IntCode compileInt(Slots slots) {
+            return state -> value;
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            throw new IllegalStateException("Expected Bool, got: " + this);
+        }
+
         @Override public String toString() {
             return String.valueOf(value);
         }
     }
 
     record Bool(boolean value) implements Expression {
+        static final Bool TRUE = new Bool(true);
+        static final Bool FALSE = new Bool(false);
+
+        static Bool of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
         @Override public Expression evaluate(Environment env) {
             return this;
         }
 
+        @Override public boolean evalBool(Environment env) {
+            return value;
+        }
+
+        @Override public IntCode compileInt(Slots slots) {
+            throw new IllegalStateException("Expected Number, got: " + this);
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            return value ? BoolCode.TRUE : BoolCode.FALSE;
+        }
+
         @Override public String toString() {
             return String.valueOf(value);
         }
@@ -166,29 +656,70 @@ class Denotational {
         @Override public String toJS() {
             return String.format("(e) => { return e.get('%s'); }", name);
         }
+
+        @Override public IntCode compileInt(Slots slots) {
+            return slots.load(name);
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            var value = slots.load(name);
+            return state -> value.apply(state) != 0;
+        }
     }
 
     static Number asNumber(Expression exp) {
         return (Number) exp;
     }
 
+    private static final Number[] SMALL_NUMBERS = new Number[1024 + 128];
+
+    static {
+        for (int i = 0; i < SMALL_NUMBERS.length; i++)
+            SMALL_NUMBERS[i] = new Number(i - 128);
+    }
+
     static Number asNumber(int value) {
+        if (value >= -128 && value < 1024)
+            return SMALL_NUMBERS[value + 128];
         return new Number(value);
     }
 
+    static Bool asBool(Expression exp) {
+        return (Bool) exp;
+    }
+
     record Add(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Number(
-                    asNumber(l).value + asNumber(r).value);
+            return asNumber(evalInt(env));
+        }
+
+        @Override public int evalInt(Environment env) {
+            return left.evalInt(env) + right.evalInt(env);
         }
 
         @Override public String toJS() {
             return String.format("(e) => { return ((%s)(e)) + ((%s)(e)); }", left.toJS(), right.toJS());
         }
 
+        @Override public IntCode compileInt(Slots slots) {
+            if (left instanceof Number(var l) && right instanceof Number(var r)) {
+                int sum = l + r;
+                return state -> sum;
+            }
+            if (left instanceof Variable(var name) && right instanceof Number(var constant) && slots.isAssigned(name)) {
+                int slot = slots.read(name);
+                return state -> state[slot] + constant;
+            }
+            var l = left.compileInt(slots);
+            var r = right.compileInt(slots);
+            return state -> l.apply(state) + r.apply(state);
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            throw new IllegalStateException("Expected Bool, got: " + this);
+        }
+
         @Override public String toString() {
             return String.format("%s + %s", left, right);
         }
@@ -197,16 +728,31 @@ class Denotational {
     record Mult(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Number(
-                    asNumber(l).value * asNumber(r).value);
+            return asNumber(evalInt(env));
+        }
+
+        @Override public int evalInt(Environment env) {
+            return left.evalInt(env) * right.evalInt(env);
         }
 
         @Override public String toJS() {
             return String.format("(e) => { return ((%s)(e)) * ((%s)(e)); }", left.toJS(), right.toJS());
         }
 
+        @Override public IntCode compileInt(Slots slots) {
+            if (left instanceof Number(var l) && right instanceof Number(var r)) {
+                int product = l * r;
+                return state -> product;
+            }
+            var l = left.compileInt(slots);
+            var r = right.compileInt(slots);
+            return state -> l.apply(state) * r.apply(state);
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            throw new IllegalStateException("Expected Bool, got: " + this);
+        }
+
         @Override public String toString() {
             return String.format("%s * %s", left, right);
         }
@@ -215,15 +761,31 @@ class Denotational {
     record LessThan(Expression left, Expression right) implements Expression {
 
         @Override public Expression evaluate(Environment env) {
-            var l = left.evaluate(env);
-            var r = right.evaluate(env);
-            return new Bool(asNumber(l).value < asNumber(r).value);
+            return Bool.of(evalBool(env));
+        }
+
+        @Override public boolean evalBool(Environment env) {
+            return left.evalInt(env) < right.evalInt(env);
         }
 
         @Override public String toJS() {
             return String.format("(e) => { return ((%s)(e)) < ((%s)(e)); }", left.toJS(), right.toJS());
         }
 
+        @Override public IntCode compileInt(Slots slots) {
+            throw new IllegalStateException("Expected Number, got: " + this);
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            if (left instanceof Variable(var name) && right instanceof Number(var constant) && slots.isAssigned(name)) {
+                int slot = slots.read(name);
+                return state -> state[slot] < constant;
+            }
+            var l = left.compileInt(slots);
+            var r = right.compileInt(slots);
+            return state -> l.apply(state) < r.apply(state);
+        }
+
         @Override public String toString() {
             return String.format("%s < %s", left, right);
         }
@@ -0,0 +1,167 @@
+package denotational;
+
+import denotational.Denotational.*;
+import denotational.Denotational.Number;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Emits a statement as flat JavaScript: one {@code let} per variable, native {@code if} and
+ * {@code while}, and inline expressions. The input {@code Map} is read once on entry and the result
+ * {@code Map} is built once on exit, with the same entries in the same order as the closures of
+ * {@code toJS()} produce.
+ * <p>
+ * Keys the program adds are appended in the order they are first assigned at run time, so each
+ * assignment that may be the first write of its variable also records it; assignments that follow a
+ * definite one do not.
+ */
+class ImperativeJs {
+
+    private final StringBuilder out = new StringBuilder();
+    private final Set<String> names = new LinkedHashSet<>();
+    private Set<String> assigned = new HashSet<>();
+    private int depth = 1;
+
+    static String toJS(Statement statement) {
+        var js = new ImperativeJs();
+        js.collect(statement);
+        var body = js.out;
+        js.statement(statement);
+
+        var sb = new StringBuilder("(e) => {\n");
+        for (var name : js.names)
+            sb.append(String.format("  let v_%s = e.get('%s'), w_%s = false;\n", name, name, name));
+        sb.append("  const fresh = [];\n");
+        sb.append(body);
+        sb.append("  const r = new Map(e);\n");
+        sb.append("  for (const k of fresh) r.set(k, undefined);\n");
+        for (var name : js.names)
+            sb.append(String.format("  if (w_%s) r.set('%s', v_%s);\n", name, name, name));
+        return sb.append("  return r;\n}").toString();
+    }
+
+    private void collect(Statement statement) {
+        while (statement instanceof Sequence s) {
+            collect(s.first());
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a -> {
+                names.add(a.name());
+                collect(a.expression());
+            }
+            case If i -> {
+                collect(i.condition());
+                collect(i.consequence());
+                collect(i.alternative());
+            }
+            case While w -> {
+                collect(w.condition());
+                collect(w.body());
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    private void collect(Expression expression) {
+        switch (expression) {
+            case Variable v -> names.add(v.name());
+            case Add a -> {
+                collect(a.left());
+                collect(a.right());
+            }
+            case Mult m -> {
+                collect(m.left());
+                collect(m.right());
+            }
+            case LessThan l -> {
+                collect(l.left());
+                collect(l.right());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void statement(Statement statement) {
+        while (statement instanceof Sequence s) {
+            statement(s.first());
+            statement = s.second();
+        }
+        switch (statement) {
+            case DoNothing d -> {
+            }
+            case Assignment a -> {
+                var name = a.name();
+                if (!assigned.contains(name))
+                    line("if (!w_%s) { w_%s = true; if (!e.has('%s')) fresh.push('%s'); }", name, name, name, name);
+                indent().append("v_").append(name).append(" = ");
+                expression(a.expression());
+                out.append(";\n");
+                assigned.add(name);
+            }
+            case If i -> {
+                indent().append("if (");
+                expression(i.condition());
+                out.append(") {\n");
+                var before = new HashSet<>(assigned);
+                block(i.consequence());
+                var afterThen = assigned;
+                assigned = before;
+                line("} else {");
+                block(i.alternative());
+                afterThen.retainAll(assigned);
+                assigned = afterThen;
+                line("}");
+            }
+            case While w -> {
+                indent().append("while (");
+                expression(w.condition());
+                out.append(") {\n");
+                var before = new HashSet<>(assigned);
+                block(w.body());
+                assigned = before;
+                line("}");
+            }
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+    }
+
+    private void block(Statement statement) {
+        depth++;
+        statement(statement);
+        depth--;
+    }
+
+    private void line(String format, Object... args) {
+        indent().append(String.format(format, args)).append('\n');
+    }
+
+    private StringBuilder indent() {
+        return out.append("  ".repeat(depth));
+    }
+
+    private void expression(Expression expression) {
+        switch (expression) {
+            case Number n -> out.append(n.value());
+            case Bool b -> out.append(b.value());
+            case Variable v -> out.append("v_").append(v.name());
+            case Add a -> binary(a.left(), " + ", a.right());
+            case Mult m -> binary(m.left(), " * ", m.right());
+            case LessThan l -> binary(l.left(), " < ", l.right());
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        }
+    }
+
+    private void binary(Expression left, String operator, Expression right) {
+        out.append('(');
+        expression(left);
+        out.append(operator);
+        expression(right);
+        out.append(')');
+    }
+}
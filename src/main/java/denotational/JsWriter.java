@@ -0,0 +1,69 @@
+package denotational;
+
+import denotational.Denotational.*;
+import denotational.Denotational.Number;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes the same JavaScript as {@code toJS()} in one pass: every node is expanded into its literal
+ * pieces and children on an explicit stack, and literals go straight to the output. Generation is
+ * linear in the size of the output, and long sequences or deep expressions only grow the heap stack.
+ */
+class JsWriter {
+
+    private final Appendable out;
+    private final Deque<Object> pending = new ArrayDeque<>();
+
+    private JsWriter(Appendable out) {
+        this.out = out;
+    }
+
+    static void write(Statement statement, Appendable out) throws IOException {
+        new JsWriter(out).run(statement);
+    }
+
+    static String toJS(Statement statement) {
+        var sb = new StringBuilder();
+        try {
+            write(statement, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    private void run(Object root) throws IOException {
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            switch (pending.pop()) {
+                case String text -> out.append(text);
+                case DoNothing d -> out.append("(e) => { return e; }");
+                case Assignment a -> push("(e) => { const n_e = new Map(e); n_e.set('", a.name(), "', ((", a.expression(), ")(e))); return n_e; }");
+                case Sequence s -> push("(e) => { return (", s.second(), ")((", s.first(), ")(e)) }");
+                case If i -> push("(e) => { if( (", i.condition(), ")(e) ) { return (", i.consequence(),
+                        ")(e); } else {  return (", i.alternative(), ")(e); }}");
+                case While w -> push(" (e) => { while( ((", w.condition(), ")(e)) ) {  e = ((", w.body(), ")(e)); } return e; }");
+                case Number n -> out.append("(e) => { return ").append(String.valueOf(n.value())).append("; }");
+                case Bool b -> out.append("(e) => { return ").append(String.valueOf(b.value())).append("; }");
+                case Variable v -> out.append("(e) => { return e.get('").append(v.name()).append("'); }");
+                case Add a -> binary(a.left(), " + ", a.right());
+                case Mult m -> binary(m.left(), " * ", m.right());
+                case LessThan l -> binary(l.left(), " < ", l.right());
+                case Object node -> throw new IllegalArgumentException("Unknown node: " + node);
+            }
+        }
+    }
+
+    private void binary(Expression left, String operator, Expression right) {
+        push("(e) => { return ((", left, ")(e))", operator, "((", right, ")(e)); }");
+    }
+
+    private void push(Object... parts) {
+        for (int i = parts.length - 1; i >= 0; i--)
+            pending.push(parts[i]);
+    }
+}
@@ -0,0 +1,270 @@
+package denotational;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived {@code node} processes that evaluate JavaScript expressions, e.g. the output of
+ * {@code toJS()} applied to a {@code Map}. Each request is one line on the worker's stdin,
+ * {@code <id> <base64 code>}, and each answer one line on its stdout,
+ * {@code <id> ok|error <base64 text>}, where text is what {@code console.log} would print.
+ * Stdout and stderr are drained by their own threads, so large outputs cannot block a worker.
+ * <p>
+ * Every request runs in a fresh {@code vm} context, so globals do not leak from one program to
+ * the next, and is stopped by {@code vm} after {@code timeout}. A worker that still gives no answer
+ * for twice that long, e.g. because a promise callback loops forever, is killed and replaced; the
+ * requests it had are completed with a {@link TimeoutException}.
+ */
+class NodeWorkerPool implements AutoCloseable {
+
+    private static final String WORKER = """
+            const util = require('util');
+            const vm = require('vm');
+            const timeout = Number(process.argv[1]);
+            const rl = require('readline').createInterface({ input: process.stdin, crlfDelay: Infinity });
+            rl.on('line', line => {
+              const space = line.indexOf(' ');
+              const id = line.substring(0, space);
+              const code = Buffer.from(line.substring(space + 1), 'base64').toString('utf8');
+              let status = 'ok', out;
+              try {
+                out = util.format(vm.runInNewContext(code, {}, { timeout }));
+              } catch (e) {
+                status = 'error';
+                out = String(e && e.stack || e);
+              }
+              process.stdout.write(id + ' ' + status + ' ' + Buffer.from(out, 'utf8').toString('base64') + '\\n');
+            });
+            """;
+
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Starts the process of one worker. */
+    interface Launcher {
+        Process start(Duration timeout) throws IOException;
+    }
+
+    static final Launcher NODE = timeout -> new ProcessBuilder("node", "-e", WORKER, String.valueOf(timeout.toMillis())).start();
+
+    private final Worker[] workers;
+    private final AtomicLong ids = new AtomicLong();
+    private final Duration timeout;
+    private final Launcher launcher;
+    private final ScheduledExecutorService watchdog =
+            Executors.newSingleThreadScheduledExecutor(r -> Thread.ofPlatform().daemon().name("node-watchdog").unstarted(r));
+
+    NodeWorkerPool(int size) {
+        this(size, DEFAULT_TIMEOUT);
+    }
+
+    NodeWorkerPool(int size, Duration timeout) {
+        this(size, timeout, NODE);
+    }
+
+    NodeWorkerPool(int size, Duration timeout, Launcher launcher) {
+        this.timeout = timeout;
+        this.launcher = launcher;
+        workers = new Worker[size];
+        for (int i = 0; i < size; i++)
+            workers[i] = new Worker(launcher, timeout);
+        watchdog.scheduleWithFixedDelay(this::replaceStalled, timeout.toMillis(), timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    CompletableFuture<String> submit(String code) {
+        var worker = leastBusy();
+        var future = worker.enqueue(ids.incrementAndGet(), code);
+        worker.flush();
+        return future;
+    }
+
+    List<CompletableFuture<String>> submitAll(List<String> codes) {
+        var futures = new ArrayList<CompletableFuture<String>>(codes.size());
+        var workers = workers();
+        int chunk = (codes.size() + workers.length - 1) / workers.length;
+        for (int from = 0, w = 0; from < codes.size(); from += chunk, w++) {
+            var worker = workers[w];
+            for (var code : codes.subList(from, Math.min(from + chunk, codes.size())))
+                futures.add(worker.enqueue(ids.incrementAndGet(), code));
+            worker.flush();
+        }
+        return futures;
+    }
+
+    private Worker leastBusy() {
+        var workers = workers();
+        var best = workers[0];
+        for (var worker : workers)
+            if (worker.pending.size() < best.pending.size())
+                best = worker;
+        return best;
+    }
+
+    private Worker[] workers() {
+        synchronized (workers) {
+            return workers.clone();
+        }
+    }
+
+    /**
+     * Kills the workers that stopped answering and replaces them, along with workers whose process
+     * is gone. A worker that cannot be started is logged and tried again on the next round; until
+     * then the dead worker fails the requests it gets at once.
+     */
+    private void replaceStalled() {
+        long limit = 2 * timeout.toNanos();
+        synchronized (workers) {
+            for (int i = 0; i < workers.length; i++) {
+                var worker = workers[i];
+                if (worker.stalled(limit))
+                    worker.kill(new TimeoutException("node worker gave no answer within " + timeout.multipliedBy(2) + " and was restarted"));
+                else if (!worker.failed())
+                    continue;
+                try {
+                    workers[i] = new Worker(launcher, timeout);
+                } catch (RuntimeException e) {
+                    System.err.println("node worker could not be restarted: " + e);
+                }
+            }
+        }
+    }
+
+    @Override public void close() {
+        watchdog.shutdownNow();
+        for (var worker : workers())
+            worker.close();
+    }
+
+    private static final class Worker {
+        final Process process;
+        final BufferedWriter stdin;
+        final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        private Exception failure; // guarded by pending; set once the worker is gone
+        private volatile long progress = System.nanoTime();
+
+        Worker(Launcher launcher, Duration timeout) {
+            try {
+                process = launcher.start(timeout);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Thread.ofPlatform().daemon().name("node-stdout-" + process.pid()).start(this::readResults);
+            Thread.ofPlatform().daemon().name("node-stderr-" + process.pid()).start(this::drainErrors);
+        }
+
+        CompletableFuture<String> enqueue(long id, String code) {
+            var future = new CompletableFuture<String>();
+            synchronized (pending) {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                    return future;
+                }
+                if (pending.isEmpty())
+                    progress = System.nanoTime();
+                pending.put(id, future);
+            }
+            var encoded = Base64.getEncoder().encodeToString(code.getBytes(StandardCharsets.UTF_8));
+            try {
+                synchronized (stdin) {
+                    stdin.write(id + " " + encoded + "\n");
+                }
+            } catch (IOException e) {
+                pending.remove(id);
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        void flush() {
+            try {
+                synchronized (stdin) {
+                    stdin.flush();
+                }
+            } catch (IOException e) {
+                failAll(e);
+            }
+        }
+
+        private void readResults() {
+            try (var stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = stdout.readLine()) != null) {
+                    progress = System.nanoTime();
+                    var parts = line.split(" ", 3);
+                    var future = pending.remove(Long.parseLong(parts[0]));
+                    if (future == null)
+                        continue;
+                    var text = new String(Base64.getDecoder().decode(parts[2]), StandardCharsets.UTF_8);
+                    if (parts[1].equals("ok"))
+                        future.complete(text);
+                    else
+                        future.completeExceptionally(new IllegalStateException(text));
+                }
+            } catch (IOException e) {
+                failAll(e);
+                return;
+            }
+            failAll(new IllegalStateException("node worker exited"));
+        }
+
+        private void drainErrors() {
+            try (var stderr = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                stderr.lines().forEach(System.err::println);
+            } catch (IOException ignored) {
+            }
+        }
+
+        /** Whether requests are waiting and nothing has been answered for {@code limit} nanoseconds. */
+        boolean stalled(long limit) {
+            return !pending.isEmpty() && System.nanoTime() - progress > limit;
+        }
+
+        /** Whether the worker is gone and fails every request. */
+        boolean failed() {
+            synchronized (pending) {
+                return failure != null;
+            }
+        }
+
+        private void failAll(Exception e) {
+            synchronized (pending) {
+                if (failure == null)
+                    failure = e;
+                pending.values().forEach(f -> f.completeExceptionally(e));
+                pending.clear();
+            }
+        }
+
+        void kill(Exception e) {
+            failAll(e);
+            process.destroyForcibly();
+        }
+
+        void close() {
+            try {
+                synchronized (stdin) {
+                    stdin.close();
+                }
+            } catch (IOException ignored) {
+            }
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package denotational;
+
+import denotational.Denotational.*;
+import denotational.Denotational.Number;
+import runtime.Profile;
+
+import java.util.ArrayList;
+
+/**
+ * Builds a copy of a program in which every node reports to a {@link Profile} while it is
+ * evaluated. Sequences are not wrapped, so the statements of a block show up side by side under
+ * the statement that contains them. The original program is left as it is and runs at full speed.
+ * <p>
+ * Both {@link Statement#evaluate} and {@link Statement#compile()} of the copy are profiled: the
+ * compiled closures of a node report to the profile when they run. {@code toJS()} is passed through
+ * unprofiled. The {@link Interpreter} and the JavaScript writers dispatch on the node records and
+ * see through to the evaluation of the wrapped statement at most.
+ */
+class Profiler {
+
+    static Statement instrument(Statement statement, Profile profile) {
+        var statements = new ArrayList<Statement>();
+        while (statement instanceof Sequence s) {
+            statements.add(instrument(s.first(), profile));
+            statement = s.second();
+        }
+        var result = simple(statement, profile);
+        for (int i = statements.size() - 1; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+
+    private static Statement simple(Statement statement, Profile profile) {
+        var copy = switch (statement) {
+            case DoNothing d -> d;
+            case Assignment a -> new Assignment(a.name(), instrument(a.expression(), profile));
+            case If i -> new If(instrument(i.condition(), profile),
+                    instrument(i.consequence(), profile), instrument(i.alternative(), profile));
+            case While w -> new While(instrument(w.condition(), profile), instrument(w.body(), profile));
+            default -> throw new IllegalArgumentException("Unknown statement: " + statement);
+        };
+        return new ProfiledStatement(copy, Profile.label(statement), profile);
+    }
+
+    static Expression instrument(Expression expression, Profile profile) {
+        return new ProfiledExpression(children(expression, profile), Profile.label(expression), profile);
+    }
+
+    private static Expression children(Expression expression, Profile profile) {
+        return switch (expression) {
+            case Number n -> n;
+            case Bool b -> b;
+            case Variable v -> v;
+            case Add a -> new Add(instrument(a.left(), profile), instrument(a.right(), profile));
+            case Mult m -> new Mult(instrument(m.left(), profile), instrument(m.right(), profile));
+            case LessThan l -> new LessThan(instrument(l.left(), profile), instrument(l.right(), profile));
+            default -> throw new IllegalArgumentException("Unknown expression: " + expression);
+        };
+    }
+
+    record ProfiledStatement(Statement statement, String label, Profile profile) implements Statement, Wrapper<Statement> {
+        @Override public Statement wrapped() {
+            return statement;
+        }
+
+        @Override public Environment evaluate(Environment env) {
+            profile.enter(label);
+            try {
+                return statement.evaluate(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public String toJS() {
+            return statement.toJS();
+        }
+
+        @Override public Code compile(Slots slots) {
+            var code = statement.compile(slots);
+            return state -> {
+                profile.enter(label);
+                try {
+                    code.run(state);
+                } finally {
+                    profile.exit();
+                }
+            };
+        }
+
+        @Override public String toString() {
+            return statement.toString();
+        }
+    }
+
+    record ProfiledExpression(Expression expression, String label, Profile profile) implements Expression, Wrapper<Expression> {
+        @Override public Expression wrapped() {
+            return expression;
+        }
+
+        @Override public Expression evaluate(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evaluate(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public int evalInt(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evalInt(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public boolean evalBool(Environment env) {
+            profile.enter(label);
+            try {
+                return expression.evalBool(env);
+            } finally {
+                profile.exit();
+            }
+        }
+
+        @Override public String toJS() {
+            return expression.toJS();
+        }
+
+        @Override public IntCode compileInt(Slots slots) {
+            var code = expression.compileInt(slots);
+            return state -> {
+                profile.enter(label);
+                try {
+                    return code.apply(state);
+                } finally {
+                    profile.exit();
+                }
+            };
+        }
+
+        @Override public BoolCode compileBool(Slots slots) {
+            var code = expression.compileBool(slots);
+            return state -> {
+                profile.enter(label);
+                try {
+                    return code.apply(state);
+                } finally {
+                    profile.exit();
+                }
+            };
+        }
+
+        @Override public String toString() {
+            return expression.toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package mylang;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Parses sources with the generated {@link MyLangParser}. The fast SLL mode is tried first
+ * and full LL is used only when SLL fails, which is also where syntax errors get reported.
+ */
+public final class ParseTrees {
+
+    private static final BaseErrorListener THROWING = new BaseErrorListener() {
+        @Override public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                          int line, int column, String msg, RecognitionException e) {
+            throw new IllegalArgumentException(String.format("%d:%d: %s", line, column + 1, msg));
+        }
+    };
+
+    private ParseTrees() {}
+
+    /** The value of a number literal; one that does not fit in an {@code int} is reported like a syntax error. */
+    public static int number(MyLangParser.NumberContext number) {
+        try {
+            return Integer.parseInt(number.getText());
+        } catch (NumberFormatException e) {
+            var token = number.getStart();
+            throw new IllegalArgumentException(String.format("%d:%d: Number is too large: %s",
+                    token.getLine(), token.getCharPositionInLine() + 1, number.getText()));
+        }
+    }
+
+    public static MyLangParser.StartContext parse(String source) {
+        var lexer = new MyLangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(THROWING);
+        var tokens = new CommonTokenStream(lexer);
+        var parser = new MyLangParser(tokens);
+        parser.removeErrorListeners();
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parser.start();
+        } catch (ParseCancellationException e) {
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(THROWING);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            return parser.start();
+        }
+    }
+}
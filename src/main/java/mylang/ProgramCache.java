@@ -0,0 +1,57 @@
+package mylang;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parsed programs keyed by the SHA-256 of their source, so resubmitting the same text
+ * skips lexing, parsing and AST building. Least recently used entries are evicted.
+ */
+public final class ProgramCache<T> {
+
+    private final Function<MyLangParser.StartContext, T> builder;
+    private final Map<ByteBuffer, T> programs;
+
+    public ProgramCache(int capacity, Function<MyLangParser.StartContext, T> builder) {
+        this.builder = builder;
+        this.programs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<ByteBuffer, T> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public T get(String source) {
+        var key = hash(source);
+        synchronized (programs) {
+            var program = programs.get(key);
+            if (program != null)
+                return program;
+        }
+        var program = builder.apply(ParseTrees.parse(source));
+        synchronized (programs) {
+            programs.put(key, program);
+        }
+        return program;
+    }
+
+    public int size() {
+        synchronized (programs) {
+            return programs.size();
+        }
+    }
+
+    private static ByteBuffer hash(String source) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package runtime;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent evaluations concurrently, e.g. {@code service.submit(() -> stmt.evaluate(env))}.
+ * At most {@code capacity} tasks are queued or running; {@link #submit} blocks the caller until one
+ * of them finishes, so a fast producer cannot pile up unbounded work.
+ * <p>
+ * Interpreters are CPU-bound, so {@link #onPlatformThreads} with one thread per core gives the
+ * best throughput; {@link #onVirtualThreads} suits tasks that also block, e.g. on node workers.
+ */
+public final class ExecutionService implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int capacity;
+
+    private ExecutionService(ExecutorService executor, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.executor = executor;
+        this.permits = new Semaphore(capacity);
+        this.capacity = capacity;
+    }
+
+    /** {@code threads} workers and up to {@code queueCapacity} tasks waiting for one. */
+    public static ExecutionService onPlatformThreads(int threads, int queueCapacity) {
+        return new ExecutionService(Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().name("evaluator-", 0).factory()),
+                threads + queueCapacity);
+    }
+
+    /** One virtual thread per task, at most {@code capacity} of them at a time. */
+    public static ExecutionService onVirtualThreads(int capacity) {
+        return new ExecutionService(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("evaluator-", 0).factory()),
+                capacity);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor).whenComplete((result, error) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Tasks accepted but not finished yet. */
+    public int pending() {
+        return capacity - permits.availablePermits();
+    }
+
+    /** Waits for accepted tasks to finish, then stops the threads. */
+    @Override public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,58 @@
+package runtime;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * The constant-folding rules of the optimizers: literal arithmetic and comparisons are computed,
+ * and {@code x + 0}, {@code x * 1} and {@code x * 0} are simplified. Every semantics has its own
+ * expression classes, so it describes its literals with {@link Literals} and passes the constructor
+ * of the operation for when nothing can be folded.
+ */
+public final class Folding {
+
+    public interface Literals<E> {
+
+        /** The value of a number literal, {@code null} for any other expression. */
+        Integer value(E expression);
+
+        E number(int value);
+
+        E bool(boolean value);
+    }
+
+    private Folding() {}
+
+    public static <E> E add(E left, E right, Literals<E> literals, BinaryOperator<E> add) {
+        var l = literals.value(left);
+        var r = literals.value(right);
+        if (l != null && r != null)
+            return literals.number(l + r);
+        if (l != null && l == 0)
+            return right;
+        if (r != null && r == 0)
+            return left;
+        return add.apply(left, right);
+    }
+
+    public static <E> E mult(E left, E right, Literals<E> literals, BinaryOperator<E> mult) {
+        var l = literals.value(left);
+        var r = literals.value(right);
+        if (l != null && r != null)
+            return literals.number(l * r);
+        if (l != null && l == 0 || r != null && r == 0)
+            return literals.number(0);
+        if (l != null && l == 1)
+            return right;
+        if (r != null && r == 1)
+            return left;
+        return mult.apply(left, right);
+    }
+
+    public static <E> E lessThan(E left, E right, Literals<E> literals, BinaryOperator<E> lessThan) {
+        var l = literals.value(left);
+        var r = literals.value(right);
+        if (l != null && r != null)
+            return literals.bool(l < r);
+        return lessThan.apply(left, right);
+    }
+}
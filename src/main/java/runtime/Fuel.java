@@ -0,0 +1,87 @@
+package runtime;
+
+import java.time.Duration;
+
+/**
+ * Budget for one slice of an evaluation: a number of steps (loop iterations for the big-step
+ * interpreters, reductions for the small-step machines) and optionally a deadline. Evaluators call
+ * {@link #consume} at their back-edges; it is a decrement and a compare, and the clock is only read
+ * every {@value #CLOCK_INTERVAL} steps.
+ * <p>
+ * Only the evaluators that take a {@code Fuel} are bounded: the {@code Interpreter} of the big-step
+ * and denotational semantics and the small-step {@code AbstractMachine} and {@code ContextMachine},
+ * which pause and can be resumed, and {@code BytecodeCompiler}, {@code RegisterCompiler} and
+ * {@code Denotational.compile}, which take a step per loop iteration with {@link #take} and abandon
+ * the run when none is left. The recursive {@code evaluate} methods, {@code Resolver},
+ * {@code SpecializingInterpreter}, {@code CseEvaluator} and the {@code IncrementalEvaluator} run
+ * until the program ends.
+ */
+public final class Fuel {
+
+    static final int CLOCK_INTERVAL = 1024;
+
+    private long remaining;
+    private final long deadline;
+    private final boolean timed;
+    private int untilClock = CLOCK_INTERVAL;
+
+    private Fuel(long steps, long deadline, boolean timed) {
+        this.remaining = steps;
+        this.deadline = deadline;
+        this.timed = timed;
+    }
+
+    public static Fuel unlimited() {
+        return new Fuel(Long.MAX_VALUE, 0, false);
+    }
+
+    public static Fuel steps(long steps) {
+        return new Fuel(steps, 0, false);
+    }
+
+    public static Fuel of(long steps, Duration timeout) {
+        return new Fuel(steps, System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    public static Fuel until(Duration timeout) {
+        return of(Long.MAX_VALUE, timeout);
+    }
+
+    /** Takes one step from the budget; false once the steps are used up or the deadline has passed. */
+    public boolean consume() {
+        if (remaining <= 0)
+            return false;
+        remaining--;
+        if (timed && --untilClock == 0) {
+            untilClock = CLOCK_INTERVAL;
+            if (System.nanoTime() - deadline >= 0)
+                remaining = 0;
+        }
+        return true;
+    }
+
+    /** {@link #consume} for evaluators that cannot pause: throws instead of returning false. */
+    public void take() {
+        if (!consume())
+            throw new ExhaustedException();
+    }
+
+    public long remaining() {
+        return remaining;
+    }
+
+    public boolean exhausted() {
+        return remaining <= 0;
+    }
+
+    /** Thrown by {@link #take}; the evaluation that ran out is abandoned. */
+    public static final class ExhaustedException extends RuntimeException {
+        public ExhaustedException() {
+            super("Out of fuel");
+        }
+    }
+
+    @Override public String toString() {
+        return timed ? String.format("Fuel(%d steps, deadline)", remaining) : String.format("Fuel(%d steps)", remaining);
+    }
+}
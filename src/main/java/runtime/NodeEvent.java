@@ -0,0 +1,28 @@
+package runtime;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One evaluation of an AST node under a {@link Profile}. Off unless a recording enables it. */
+@Name("mylang.NodeExecution")
+@Label("Node Execution")
+@Category("MyLang")
+@Description("Evaluation of one AST node by a profiled evaluator")
+@Enabled(false)
+@StackTrace(false)
+public final class NodeEvent extends Event {
+
+    @Label("Node")
+    String node;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Allocated")
+    long allocated;
+}
@@ -0,0 +1,285 @@
+package runtime;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie. {@link #put} returns a new map that shares
+ * every untouched branch with the old one, so an update costs O(log32 n).
+ */
+public final class PersistentMap<K, V> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentMap<K, V> result = empty();
+        for (var entry : map.entrySet())
+            result = result.put(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return (V) root.find(key, hash(key), 0);
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        var added = new boolean[1];
+        var newRoot = root.put(key, value, hash(key), 0, added);
+        if (newRoot == root)
+            return this;
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    /**
+     * Calls {@code action} for every key whose value differs from the one in {@code older}, with a
+     * {@code null} value for keys that only {@code older} has. Branches the two maps share are skipped
+     * without being visited, so comparing a map with an earlier version of itself costs in proportion
+     * to the changes, not to the size.
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(PersistentMap<K, V> older, BiConsumer<? super K, ? super V> action) {
+        diff(root, older.root, 0, (BiConsumer<Object, Object>) action);
+    }
+
+    @Override public String toString() {
+        var sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2)
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        var ignored = new boolean[1];
+        return BitmapNode.EMPTY
+                .put(key1, value1, hash1, shift, ignored)
+                .put(key2, value2, hash2, shift, ignored);
+    }
+
+    private static void diff(Node newer, Node older, int shift, BiConsumer<Object, Object> action) {
+        if (newer == older)
+            return;
+        if (!(newer instanceof BitmapNode n) || !(older instanceof BitmapNode o)) {
+            newer.forEach((k, v) -> {
+                if (!v.equals(older.find(k, hash(k), shift)))
+                    action.accept(k, v);
+            });
+            older.forEach((k, v) -> {
+                if (newer.find(k, hash(k), shift) == null)
+                    action.accept(k, null);
+            });
+            return;
+        }
+        for (int bits = n.bitmap | o.bitmap; bits != 0; bits &= bits - 1) {
+            int bit = bits & -bits;
+            if ((o.bitmap & bit) == 0) {
+                n.slot(bit, shift).forEach(action);
+                continue;
+            }
+            if ((n.bitmap & bit) == 0) {
+                o.slot(bit, shift).forEach((k, v) -> action.accept(k, null));
+                continue;
+            }
+            int i = 2 * n.index(bit);
+            int j = 2 * o.index(bit);
+            var nk = n.array[i];
+            var ok = o.array[j];
+            if (nk != null && ok != null) {
+                if (nk.equals(ok)) {
+                    if (!n.array[i + 1].equals(o.array[j + 1]))
+                        action.accept(nk, n.array[i + 1]);
+                } else {
+                    action.accept(nk, n.array[i + 1]);
+                    action.accept(ok, null);
+                }
+                continue;
+            }
+            diff(n.slot(bit, shift), o.slot(bit, shift), shift + 5, action);
+        }
+    }
+
+    private interface Node {
+        Object find(Object key, int hash, int shift);
+
+        Node put(Object key, Object value, int hash, int shift, boolean[] added);
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Up to 32 slots selected by five bits of the hash. A slot holds either a
+     * key/value pair or, when its key is {@code null}, a child node.
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override public Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return null;
+            int i = 2 * index(bit);
+            var k = array[i];
+            if (k == null)
+                return ((Node) array[i + 1]).find(key, hash, shift + 5);
+            return key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override public Node put(Object key, Object value, int hash, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                var newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            var k = array[i];
+            var v = array[i + 1];
+            if (k == null) {
+                var child = ((Node) v).put(key, value, hash, shift + 5, added);
+                return child == v ? this : with(i + 1, child);
+            }
+            if (key.equals(k))
+                return v == value ? this : with(i + 1, value);
+
+            added[0] = true;
+            var newArray = array.clone();
+            newArray[i] = null;
+            newArray[i + 1] = createNode(shift + 5, k, v, hash, key, value);
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null)
+                    ((Node) array[i + 1]).forEach(action);
+                else
+                    action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        /** The slot for {@code bit} as a node one level down: its child, or a node holding its one entry. */
+        private Node slot(int bit, int shift) {
+            int i = 2 * index(bit);
+            if (array[i] == null)
+                return (Node) array[i + 1];
+            return EMPTY.put(array[i], array[i + 1], hash(array[i]), shift + 5, new boolean[1]);
+        }
+
+        private BitmapNode with(int i, Object value) {
+            var newArray = array.clone();
+            newArray[i] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+    }
+
+    /**
+     * Keys whose full 32-bit hashes are equal, kept as a flat key/value array.
+     */
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override public Object find(Object key, int hash, int shift) {
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                    return array[i + 1];
+            return null;
+        }
+
+        @Override public Node put(Object key, Object value, int hash, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                var wrapper = new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+                return wrapper.put(key, value, hash, shift, added);
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    if (array[i + 1] == value)
+                        return this;
+                    var newArray = array.clone();
+                    newArray[i + 1] = value;
+                    return new CollisionNode(hash, newArray);
+                }
+            }
+            added[0] = true;
+            var newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2)
+                action.accept(array[i], array[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visits, reduction steps, inclusive time and allocated bytes per AST node, arranged as a tree of
+ * the paths that led to each node. Paths are made of node labels ({@link #label}), so two nodes that
+ * print the same under the same parent share an entry.
+ * <p>
+ * Evaluators report through {@link #enter}/{@link #exit} around the evaluation of a node and
+ * {@link #step} for every reduction. Each entry is also a {@link NodeEvent} for Flight Recorder.
+ * Only instrumented trees call into a profile; the plain tree an evaluator runs otherwise is not
+ * touched, so profiling that is switched off costs nothing. A profile belongs to one thread.
+ * <p>
+ * What the profile allocates for its own bookkeeping, new entries and events, is measured as it
+ * happens and left out of {@link Node#allocated()}.
+ */
+public final class Profile {
+
+    private static final int LABEL_LENGTH = 80;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                    && t.isThreadAllocatedMemorySupported() ? t : null;
+
+    public static final class Node {
+        private final String label;
+        private final Node parent;
+        private final int depth;
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private long visits;
+        private long steps;
+        private long nanos;
+        private long allocated;
+
+        private long startNanos;
+        private long startAllocated;
+        private long startOverhead;
+        private NodeEvent event;
+
+        private Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public long visits() {
+            return visits;
+        }
+
+        public long steps() {
+            return steps;
+        }
+
+        /** Inclusive time, children included. */
+        public long nanos() {
+            return nanos;
+        }
+
+        /** Bytes allocated while the node was running, children included. */
+        public long allocated() {
+            return allocated;
+        }
+
+        public Collection<Node> children() {
+            return children.values();
+        }
+
+        public Node child(String label) {
+            return children.get(label);
+        }
+
+        long selfNanos() {
+            long self = nanos;
+            for (var child : children.values())
+                self -= child.nanos;
+            return Math.max(self, 0);
+        }
+    }
+
+    private final Node root = new Node("", null);
+    private Node current = root;
+    /** Never committed; only asked whether a recording enables {@link NodeEvent}s. */
+    private final NodeEvent probe = new NodeEvent();
+    /** Bytes allocated by the profile itself so far. */
+    private long overhead;
+
+    public Node root() {
+        return root;
+    }
+
+    /** The label of an AST node: its {@code toString()} on one line, without {@code ;}, cut to a readable length. */
+    public static String label(Object node) {
+        var label = node.toString().replace(';', ',').replace('\n', ' ');
+        return label.length() <= LABEL_LENGTH ? label : label.substring(0, LABEL_LENGTH - 3) + "...";
+    }
+
+    public void enter(String label) {
+        long before = allocatedBytes();
+        var node = current.children.computeIfAbsent(label, l -> new Node(l, current));
+        node.visits++;
+        current = node;
+        if (probe.isEnabled()) {
+            node.event = new NodeEvent();
+            node.event.begin();
+        }
+        node.startAllocated = allocatedBytes();
+        overhead += node.startAllocated - before;
+        node.startOverhead = overhead;
+        node.startNanos = System.nanoTime();
+    }
+
+    public void exit() {
+        long end = System.nanoTime();
+        long after = allocatedBytes();
+        var node = current;
+        if (node == root)
+            throw new IllegalStateException("exit() without enter()");
+        node.nanos += end - node.startNanos;
+        // the overhead of the children's enters and exits happened inside this node's interval
+        long allocated = after - node.startAllocated - (overhead - node.startOverhead);
+        node.allocated += allocated;
+        current = node.parent;
+
+        var event = node.event;
+        if (event != null) {
+            node.event = null;
+            event.end();
+            if (event.shouldCommit()) {
+                event.node = node.label;
+                event.depth = node.depth;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+        overhead += allocatedBytes() - after;
+    }
+
+    /** Counts one reduction step against the node that was entered last. */
+    public void step() {
+        current.steps++;
+    }
+
+    /**
+     * Self time per path in the collapsed-stack format of flame graph tools: one line per path,
+     * frames separated by {@code ;}, followed by the self time in nanoseconds.
+     */
+    public String collapsed() {
+        var sb = new StringBuilder();
+        var frames = new StringBuilder();
+        // depth-first, in the order nodes were first seen
+        var order = new ArrayDeque<Node>(root.children.values());
+        while (!order.isEmpty()) {
+            var node = order.pollFirst();
+            long self = node.selfNanos();
+            if (self > 0) {
+                frames.setLength(0);
+                path(node, frames);
+                sb.append(frames).append(' ').append(self).append('\n');
+            }
+            var children = node.children.values().toArray(Node[]::new);
+            for (int i = children.length - 1; i >= 0; i--)
+                order.addFirst(children[i]);
+        }
+        return sb.toString();
+    }
+
+    private static void path(Node node, StringBuilder sb) {
+        if (node.parent.parent != null) {
+            path(node.parent, sb);
+            sb.append(';');
+        }
+        sb.append(node.label);
+    }
+
+    @Override public String toString() {
+        var sb = new StringBuilder();
+        var order = new ArrayDeque<Node>(root.children.values());
+        while (!order.isEmpty()) {
+            var node = order.pollFirst();
+            sb.append("  ".repeat(node.depth - 1)).append(String.format("%s  visits=%d steps=%d time=%.3fms allocated=%d%n",
+                    node.label, node.visits, node.steps, node.nanos / 1e6, node.allocated));
+            var children = node.children.values().toArray(Node[]::new);
+            for (int i = children.length - 1; i >= 0; i--)
+                order.addFirst(children[i]);
+        }
+        return sb.toString();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
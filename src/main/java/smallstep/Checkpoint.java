@@ -0,0 +1,322 @@
+package smallstep;
+
+import runtime.PersistentMap;
+import smallstep.SmallStep.*;
+import smallstep.SmallStep.Number;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static smallstep.SmallStep.asNumber;
+
+/**
+ * Binary checkpoints of machine configurations. A checkpoint stream is a sequence of records, each
+ * a kind byte, a length and a payload. A {@code FULL} record holds the statement and the whole
+ * environment; a {@code DELTA} record holds the statement and only the variables that changed since
+ * the previous record, found with {@link PersistentMap#diff} so that unchanged parts of the
+ * environment are not even visited.
+ * <p>
+ * Names are written once per run of records and referred to by index afterwards; a full record
+ * starts a new run, so reading can begin at any full record. A record cut short by a crash is
+ * ignored, and {@link #restore(InputStream)} returns the last complete configuration.
+ */
+class Checkpoint {
+
+    private static final int MAGIC = 0x534d4331; // "SMC1"
+
+    private static final int FULL = 1;
+    private static final int DELTA = 2;
+
+    private static final int DO_NOTHING = 0;
+    private static final int ASSIGNMENT = 1;
+    private static final int SEQUENCE = 2;
+    private static final int IF = 3;
+    private static final int WHILE = 4;
+    private static final int NUMBER = 5;
+    private static final int VARIABLE = 6;
+    private static final int ADD = 7;
+    private static final int MULT = 8;
+    private static final int LESS_THAN = 9;
+
+    static byte[] save(Configuration configuration) {
+        var bytes = new ByteArrayOutputStream();
+        try (var writer = new Writer(bytes)) {
+            writer.write(configuration);
+        }
+        return bytes.toByteArray();
+    }
+
+    static StatementResult restore(byte[] bytes) {
+        return restore(new ByteArrayInputStream(bytes));
+    }
+
+    /** Replays a checkpoint stream and returns the configuration of its last complete record. */
+    static StatementResult restore(InputStream stream) {
+        var in = new DataInputStream(stream);
+        try {
+            if (in.readInt() != MAGIC)
+                throw new IllegalArgumentException("Not a checkpoint");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a checkpoint", e);
+        }
+        var reader = new Decoder();
+        StatementResult result = null;
+        while (true) {
+            byte[] payload;
+            int kind;
+            try {
+                kind = in.read();
+                if (kind < 0)
+                    break;
+                payload = new byte[in.readInt()];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                break;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (kind != FULL && result == null)
+                throw new IllegalArgumentException("Checkpoint does not start with a full record");
+            result = reader.record(kind, payload, result);
+        }
+        if (result == null)
+            throw new IllegalArgumentException("Checkpoint has no complete record");
+        return result;
+    }
+
+    /**
+     * Appends records to a stream. The first record is full; every later one is a delta against the
+     * previous record unless {@link #writeFull} is asked for.
+     */
+    static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> names = new HashMap<>();
+        private PersistentMap<String, Expression> last;
+
+        Writer(OutputStream stream) {
+            this.out = new DataOutputStream(stream);
+            try {
+                out.writeInt(MAGIC);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void write(Configuration configuration) {
+            if (last == null)
+                writeFull(configuration);
+            else
+                record(DELTA, configuration);
+        }
+
+        void writeFull(Configuration configuration) {
+            names.clear();
+            last = null;
+            record(FULL, configuration);
+        }
+
+        @Override public void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void record(int kind, Configuration configuration) {
+            var map = configuration.environment().map;
+            var changes = new ArrayList<Object>();
+            if (kind == DELTA) {
+                var removed = new boolean[1];
+                map.diff(last, (name, value) -> {
+                    removed[0] |= value == null;
+                    changes.add(name);
+                    changes.add(value);
+                });
+                if (removed[0]) {
+                    // environments only grow, so this is a different run: start over with a full record
+                    writeFull(configuration);
+                    return;
+                }
+            } else {
+                map.forEach((name, value) -> {
+                    changes.add(name);
+                    changes.add(value);
+                });
+            }
+
+            var bytes = new ByteArrayOutputStream();
+            var payload = new DataOutputStream(bytes);
+            try {
+                statement(payload, configuration.statement());
+                writeInt(payload, changes.size() / 2);
+                for (int i = 0; i < changes.size(); i += 2) {
+                    name(payload, (String) changes.get(i));
+                    expression(payload, (Expression) changes.get(i + 1));
+                }
+                out.writeByte(kind);
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            last = map;
+        }
+
+        private void statement(DataOutputStream out, Statement statement) throws IOException {
+            // the right spine of a sequence is written as a run, so long programs do not recurse deeply
+            while (statement instanceof Sequence s) {
+                out.writeByte(SEQUENCE);
+                statement(out, s.first);
+                statement = s.second;
+            }
+            switch (statement) {
+                case DoNothing d -> out.writeByte(DO_NOTHING);
+                case Assignment a -> {
+                    out.writeByte(ASSIGNMENT);
+                    name(out, a.name);
+                    expression(out, a.expression);
+                }
+                case If i -> {
+                    out.writeByte(IF);
+                    expression(out, i.condition);
+                    statement(out, i.consequence);
+                    statement(out, i.alternative);
+                }
+                case While w -> {
+                    out.writeByte(WHILE);
+                    expression(out, w.condition);
+                    statement(out, w.body);
+                }
+                case Sequence s -> throw new IllegalStateException("Sequence is written above: " + s);
+            }
+        }
+
+        private void expression(DataOutputStream out, Expression expression) throws IOException {
+            switch (expression) {
+                case Number n -> {
+                    out.writeByte(NUMBER);
+                    writeInt(out, (n.value << 1) ^ (n.value >> 31));
+                }
+                case Variable v -> {
+                    out.writeByte(VARIABLE);
+                    name(out, v.name);
+                }
+                case Add a -> binary(out, ADD, a.left, a.right);
+                case Mult m -> binary(out, MULT, m.left, m.right);
+                case LessThan l -> binary(out, LESS_THAN, l.left, l.right);
+            }
+        }
+
+        private void binary(DataOutputStream out, int tag, Expression left, Expression right) throws IOException {
+            out.writeByte(tag);
+            expression(out, left);
+            expression(out, right);
+        }
+
+        /** A name already in the table is its index + 1; a new one is 0 followed by the text. */
+        private void name(DataOutputStream out, String name) throws IOException {
+            var index = names.get(name);
+            if (index != null) {
+                writeInt(out, index + 1);
+            } else {
+                writeInt(out, 0);
+                out.writeUTF(name);
+                names.put(name, names.size());
+            }
+        }
+
+        private static void writeInt(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static final class Decoder {
+        private final List<String> names = new ArrayList<>();
+        private DataInputStream in;
+
+        StatementResult record(int kind, byte[] payload, StatementResult previous) {
+            if (kind != FULL && kind != DELTA)
+                throw new IllegalArgumentException("Unknown checkpoint record: " + kind);
+            if (kind == FULL)
+                names.clear();
+            in = new DataInputStream(new ByteArrayInputStream(payload));
+            try {
+                var statement = statement();
+                var env = kind == FULL ? new Environment() : previous.environment().copy();
+                for (int n = readInt(); n > 0; n--)
+                    env.set(name(), expression());
+                return new StatementResult(statement, env);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Corrupt checkpoint record", e);
+            }
+        }
+
+        private Statement statement() throws IOException {
+            var firsts = new ArrayList<Statement>();
+            int tag;
+            while ((tag = in.readUnsignedByte()) == SEQUENCE)
+                firsts.add(statement());
+            Statement result = switch (tag) {
+                case DO_NOTHING -> new DoNothing();
+                case ASSIGNMENT -> new Assignment(name(), expression());
+                case IF -> new If(expression(), statement(), statement());
+                case WHILE -> new While(expression(), statement());
+                default -> throw new IllegalArgumentException("Unknown statement tag: " + tag);
+            };
+            for (int i = firsts.size() - 1; i >= 0; i--)
+                result = new Sequence(firsts.get(i), result);
+            return result;
+        }
+
+        private Expression expression() throws IOException {
+            int tag = in.readUnsignedByte();
+            return switch (tag) {
+                case NUMBER -> {
+                    int zigzag = readInt();
+                    yield asNumber((zigzag >>> 1) ^ -(zigzag & 1));
+                }
+                case VARIABLE -> new Variable(name());
+                case ADD -> new Add(expression(), expression());
+                case MULT -> new Mult(expression(), expression());
+                case LESS_THAN -> new LessThan(expression(), expression());
+                default -> throw new IllegalArgumentException("Unknown expression tag: " + tag);
+            };
+        }
+
+        private String name() throws IOException {
+            int index = readInt();
+            if (index > 0)
+                return names.get(index - 1);
+            var name = in.readUTF();
+            names.add(name);
+            return name;
+        }
+
+        private int readInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+    }
+}
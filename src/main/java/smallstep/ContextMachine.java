@@ -0,0 +1,188 @@
+package smallstep;
+
+import runtime.Fuel;
+import smallstep.SmallStep.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Same reductions as {@link AbstractMachine}, but the path from the root to the
+ * current redex is kept on explicit stacks, so a step does not re-walk and rebuild
+ * the whole program. The full configuration is only assembled when a listener asks.
+ */
+class ContextMachine implements Configuration {
+
+    // pending second halves of the Sequences around the focus, innermost on top
+    private final Deque<Statement> continuation = new ArrayDeque<>();
+    // path from the focused statement's expression down to the focused expression
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private Statement statement;
+    private Expression expression;
+    private Environment env;
+
+    ContextMachine(Statement statement, Environment env) {
+        this.statement = statement;
+        this.env = env;
+    }
+
+    static Environment evaluate(Statement stmt) {
+        return evaluate(stmt, new Environment());
+    }
+
+    static Environment evaluate(Statement stmt, Environment env) {
+        return evaluate(stmt, env, StepListener.NONE);
+    }
+
+    static Environment evaluate(Statement stmt, Environment env, StepListener listener) {
+        var machine = new ContextMachine(stmt, env);
+        listener.onStep(machine);
+        while (machine.step())
+            listener.onStep(machine);
+        return machine.env;
+    }
+
+    static ContextMachine evaluate(Statement stmt, Environment env, Fuel fuel) {
+        var machine = new ContextMachine(stmt, env);
+        machine.run(fuel);
+        return machine;
+    }
+
+    /** Steps while {@code fuel} lasts, one unit per step; returns whether the program has finished. */
+    boolean run(Fuel fuel) {
+        while (!finished() && fuel.consume())
+            step();
+        return finished();
+    }
+
+    /** The statement the next step works on, as it was when the machine reached it. */
+    Statement focus() {
+        return statement;
+    }
+
+    /** The partly reduced expression of {@link #focus()}, or null when no expression is in progress. */
+    Expression pending() {
+        return expression;
+    }
+
+    @Override public boolean finished() {
+        return expression == null && statement instanceof DoNothing && continuation.isEmpty();
+    }
+
+    boolean step() {
+        if (expression != null) {
+            stepExpression();
+            return true;
+        }
+        while (true) {
+            switch (statement) {
+                case DoNothing d -> {
+                    if (continuation.isEmpty())
+                        return false;
+                    statement = continuation.pop();
+                    return true;
+                }
+                case Sequence s -> {
+                    continuation.push(s.second);
+                    statement = s.first;
+                }
+                case Assignment a when a.expression.reducible() -> {
+                    expression = a.expression;
+                    stepExpression();
+                    return true;
+                }
+                case If i when i.condition.reducible() -> {
+                    expression = i.condition;
+                    stepExpression();
+                    return true;
+                }
+                default -> {
+                    var result = statement.reduce(env);
+                    statement = result.statement();
+                    env = result.environment();
+                    return true;
+                }
+            }
+        }
+    }
+
+    private void stepExpression() {
+        var value = descend(expression).reduce(env);
+        if (frames.isEmpty()) {
+            statement = withExpression(statement, value);
+            expression = null;
+        } else {
+            expression = frames.pop().plug(value);
+        }
+    }
+
+    private Expression descend(Expression e) {
+        while (true) {
+            Expression left;
+            Expression right;
+            switch (e) {
+                case Add a -> {
+                    left = a.left;
+                    right = a.right;
+                }
+                case Mult m -> {
+                    left = m.left;
+                    right = m.right;
+                }
+                case LessThan l -> {
+                    left = l.left;
+                    right = l.right;
+                }
+                default -> {
+                    return e;
+                }
+            }
+            if (left.reducible()) {
+                frames.push(new Frame(e, true));
+                e = left;
+            } else if (right.reducible()) {
+                frames.push(new Frame(e, false));
+                e = right;
+            } else {
+                return e;
+            }
+        }
+    }
+
+    @Override public Statement statement() {
+        var result = statement;
+        if (expression != null) {
+            var e = expression;
+            for (var frame : frames)
+                e = frame.plug(e);
+            result = withExpression(statement, e);
+        }
+        for (var second : continuation)
+            result = new Sequence(result, second);
+        return result;
+    }
+
+    @Override public Environment environment() {
+        return env;
+    }
+
+    private static Statement withExpression(Statement statement, Expression e) {
+        return switch (statement) {
+            case Assignment a -> new Assignment(a.name, e);
+            case If i -> new If(e, i.consequence, i.alternative);
+            default -> throw new IllegalStateException("No expression in: " + statement);
+        };
+    }
+
+    private record Frame(Expression parent, boolean left) {
+        Expression plug(Expression hole) {
+            return switch (parent) {
+                case Add a -> left ? new Add(hole, a.right) : new Add(a.left, hole);
+                case Mult m -> left ? new Mult(hole, m.right) : new Mult(m.left, hole);
+                case LessThan l -> left ? new LessThan(hole, l.right) : new LessThan(l.left, hole);
+                default -> throw new IllegalStateException("Not a binary expression: " + parent);
+            };
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package smallstep;
+
+import smallstep.SmallStep.*;
+import smallstep.SmallStep.Number;
+import runtime.Folding;
+
+import java.util.ArrayList;
+
+import static smallstep.SmallStep.asNumber;
+
+/**
+ * Rewrites a program into an equivalent one that reduces in fewer steps: folds literal arithmetic
+ * and comparisons, applies {@code x + 0}, {@code x * 1} and {@code x * 0} (see {@link Folding}),
+ * keeps only the taken branch of an {@code If} on a literal, drops {@code while (0)} and removes
+ * {@code do-nothing} from sequences. Conditions follow {@link If}: {@code 0} is false, any other
+ * number is true.
+ * <p>
+ * It assumes a program that does not fail: {@code x * 0} becomes {@code 0} without reading
+ * {@code x}, so an unbound {@code x} no longer throws.
+ */
+class Optimizer {
+
+    private static final Folding.Literals<Expression> LITERALS = new Folding.Literals<>() {
+        @Override public Integer value(Expression expression) {
+            return expression instanceof Number n ? n.value : null;
+        }
+
+        @Override public Expression number(int value) {
+            return asNumber(value);
+        }
+
+        @Override public Expression bool(boolean value) {
+            return asNumber(value ? 1 : 0);
+        }
+    };
+
+    static Statement optimize(Statement statement) {
+        var statements = new ArrayList<Statement>();
+        while (statement instanceof Sequence s) {
+            add(statements, optimize(s.first));
+            statement = s.second;
+        }
+        add(statements, simple(statement));
+
+        if (statements.isEmpty())
+            return new DoNothing();
+        var result = statements.getLast();
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+
+    private static void add(ArrayList<Statement> statements, Statement statement) {
+        if (!(statement instanceof DoNothing))
+            statements.add(statement);
+    }
+
+    private static Statement simple(Statement statement) {
+        return switch (statement) {
+            case DoNothing d -> d;
+            case Assignment a -> new Assignment(a.name, optimize(a.expression));
+            case If i -> {
+                var condition = optimize(i.condition);
+                if (condition instanceof Number n)
+                    yield optimize(n.value != 0 ? i.consequence : i.alternative);
+                yield new If(condition, optimize(i.consequence), optimize(i.alternative));
+            }
+            case While w -> {
+                var condition = optimize(w.condition);
+                if (is(condition, 0))
+                    yield new DoNothing();
+                yield new While(condition, optimize(w.body));
+            }
+            case Sequence s -> optimize(s);
+        };
+    }
+
+    static Expression optimize(Expression expression) {
+        return switch (expression) {
+            case Add a -> Folding.add(optimize(a.left), optimize(a.right), LITERALS, Add::new);
+            case Mult m -> Folding.mult(optimize(m.left), optimize(m.right), LITERALS, Mult::new);
+            case LessThan t -> Folding.lessThan(optimize(t.left), optimize(t.right), LITERALS, LessThan::new);
+            case Number n -> n;
+            case Variable v -> v;
+        };
+    }
+
+    private static boolean is(Expression expression, int value) {
+        return expression instanceof Number n && n.value == value;
+    }
+}
@@ -0,0 +1,129 @@
+package smallstep;
+
+import runtime.Profile;
+import smallstep.SmallStep.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Runs a program on a {@link ContextMachine} and charges every step to the statement in focus
+ * and, for expression steps, to the subexpression being reduced. Reductions replace nodes with new
+ * ones, so the labels are taken from the statement as the machine reached it: the reduction of
+ * {@code 3 + 1} inside {@code x = x + 1} is recorded as {@code x = x + 1;x + 1}. Statements are
+ * recorded side by side; a loop body is not nested under its {@code while}, which the machine has
+ * already unfolded into an {@code if}.
+ * <p>
+ * Nodes are immutable, so a label is computed once per node and looked up by identity on every
+ * later step charged to it.
+ * <p>
+ * Unprofiled runs go through {@link ContextMachine#evaluate} and never reach this class.
+ */
+class Profiler {
+
+    static Environment evaluate(Statement stmt, Environment env, Profile profile) {
+        var machine = new ContextMachine(stmt, env);
+        var labels = new Labels();
+        // once its expression is a value, the statement in focus is a new one (x = 1 for x = x + 1);
+        // its last step is still charged to the statement the machine reached
+        String finishing = null;
+        while (!machine.finished()) {
+            var statement = machine.focus();
+            while (statement instanceof Sequence s)
+                statement = s.first;
+            var original = expression(statement);
+            var current = machine.pending() != null ? machine.pending() : original;
+
+            var label = finishing != null ? finishing : labels.of(statement);
+            finishing = null;
+            profile.enter(label);
+            if (current != null && current.reducible()) {
+                profile.enter(labels.of(redex(original, current)));
+                profile.step();
+                machine.step();
+                profile.exit();
+                if (machine.pending() == null)
+                    finishing = label;
+            } else {
+                profile.step();
+                machine.step();
+            }
+            profile.exit();
+        }
+        return machine.environment();
+    }
+
+    private static final class Labels {
+        private final Map<Object, String> nodes = new IdentityHashMap<>();
+        // a while unfolds into a new if on every iteration, so the label of that if is kept by while
+        private final Map<While, String> unfolded = new IdentityHashMap<>();
+
+        String of(Object node) {
+            if (node instanceof If i && i.consequence instanceof Sequence s && s.second instanceof While w
+                    && w.condition == i.condition && w.body == s.first)
+                return unfolded.computeIfAbsent(w, k -> Profile.label(node));
+            return nodes.computeIfAbsent(node, Profile::label);
+        }
+    }
+
+    private static Expression expression(Statement statement) {
+        return switch (statement) {
+            case Assignment a -> a.expression;
+            case If i -> i.condition;
+            default -> null;
+        };
+    }
+
+    /** Follows the path the machine takes to the redex of {@code current}, returning the same position in {@code original}. */
+    private static Expression redex(Expression original, Expression current) {
+        while (true) {
+            Expression left;
+            Expression right;
+            Expression originalLeft;
+            Expression originalRight;
+            switch (current) {
+                case Add a -> {
+                    left = a.left;
+                    right = a.right;
+                }
+                case Mult m -> {
+                    left = m.left;
+                    right = m.right;
+                }
+                case LessThan l -> {
+                    left = l.left;
+                    right = l.right;
+                }
+                default -> {
+                    return original;
+                }
+            }
+            switch (original) {
+                case Add a -> {
+                    originalLeft = a.left;
+                    originalRight = a.right;
+                }
+                case Mult m -> {
+                    originalLeft = m.left;
+                    originalRight = m.right;
+                }
+                case LessThan l -> {
+                    originalLeft = l.left;
+                    originalRight = l.right;
+                }
+                default -> {
+                    return original;
+                }
+            }
+            if (left.reducible()) {
+                current = left;
+                original = originalLeft;
+            } else if (right.reducible()) {
+                current = right;
+                original = originalRight;
+            } else {
+                return original;
+            }
+        }
+    }
+}
@@ -1,33 +1,36 @@
 package smallstep;
 
-import java.util.HashMap;
+import runtime.Fuel;
+import runtime.PersistentMap;
+
 import java.util.Map;
-import java.util.Objects;
 
 class SmallStep {
 
     static class Environment {
-        final Map<String, Expression> map;
+        PersistentMap<String, Expression> map;
+
+        Environment(PersistentMap<String, Expression> map) {this.map = map;}
 
-        Environment(Map<String, Expression> map) {this.map = map;}
+        Environment(Map<String, Expression> map) {this(PersistentMap.copyOf(map));}
 
         public Environment() {
-            this(new HashMap<>());
+            this(PersistentMap.empty());
         }
 
         void set(String name, Expression value) {
-            map.put(name, value);
+            map = map.put(name, value);
         }
 
         Expression get(String name) {
-            return Objects.requireNonNull(
-                    map.get(name),
-                    "Nothing found for name: " + name
-            );
+            var value = map.get(name);
+            if (value == null)
+                throw new NullPointerException("Nothing found for name: " + name);
+            return value;
         }
 
         public Environment copy() {
-            return new Environment(new HashMap<>(map));
+            return new Environment(map);
         }
 
         @Override public String toString() {
@@ -35,20 +38,62 @@ class SmallStep {
         }
     }
 
+    interface Configuration {
+        Statement statement();
+
+        Environment environment();
+
+        default boolean finished() {
+            return !statement().reducible();
+        }
+    }
+
+    interface StepListener {
+        StepListener NONE = new StepListener() {};
+
+        StepListener PRINT = new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                System.out.printf("%s, %s%n", configuration.statement(), configuration.environment());
+            }
+
+            @Override public void onStep(Expression expression) {
+                System.out.println(expression);
+            }
+        };
+
+        default void onStep(Configuration configuration) {}
+
+        default void onStep(Expression expression) {}
+    }
+
     static class AbstractMachine {
         static Environment evaluate(Statement stmt) {
             return evaluate(stmt, new Environment());
         }
 
         static Environment evaluate(Statement stmt, Environment env) {
-            while (stmt.reducible()) {
-                System.out.printf("%s, %s\n", stmt, env);
-                var result = stmt.reduce(env);
-                stmt = result.statement();
-                env = result.environment();
+            return evaluate(stmt, env, StepListener.NONE);
+        }
+
+        static Environment evaluate(Statement stmt, Environment env, StepListener listener) {
+            var configuration = new StatementResult(stmt, env);
+            listener.onStep(configuration);
+            while (configuration.statement().reducible()) {
+                configuration = configuration.statement().reduce(configuration.environment());
+                listener.onStep(configuration);
             }
-            System.out.printf("%s, %s", stmt, env);
-            return env;
+            return configuration.environment();
+        }
+
+        /** Takes one reduction per unit of {@code fuel}; pass the result back to {@link #resume} until it is finished. */
+        static Configuration evaluate(Statement stmt, Environment env, Fuel fuel) {
+            return resume(new StatementResult(stmt, env), fuel);
+        }
+
+        static Configuration resume(Configuration configuration, Fuel fuel) {
+            while (configuration.statement().reducible() && fuel.consume())
+                configuration = configuration.statement().reduce(configuration.environment());
+            return configuration;
         }
 
         static Expression evaluate(Expression e) {
@@ -56,23 +101,22 @@ class SmallStep {
         }
 
         static Expression evaluate(Expression e, Environment env) {
+            return evaluate(e, env, StepListener.NONE);
+        }
 
+        static Expression evaluate(Expression e, Environment env, StepListener listener) {
+            listener.onStep(e);
             while (e.reducible()) {
-                e = step(e, env);
+                e = e.reduce(env);
+                listener.onStep(e);
             }
-            System.out.println(e);
             return e;
         }
-
-        private static Expression step(Expression e, Environment env) {
-            System.out.println(e);
-            return e.reduce(env);
-        }
     }
 
     record StatementResult(
             Statement statement, Environment environment
-    ) {}
+    ) implements Configuration {}
 
     static sealed abstract class Statement {
         boolean reducible() {
@@ -0,0 +1,89 @@
+package bigStep;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AstBuilderTest {
+
+    private static final String FACTORIAL = """
+            i = 0; fact = 1;
+            while (i < 5) {
+              i = i + 1;
+              fact = fact * i;
+            }
+            if (fact < 100) { small = true; } else { small = false; do-nothing; }
+            """;
+
+    @Test void builds_same_ast_as_hand_written_parser() {
+        var ast = AstBuilder.parse(FACTORIAL);
+
+        assertThat(ast).isEqualTo(new Parser().parseStatement(FACTORIAL));
+        assertThat(ast.evaluate(new Environment()).get("fact")).isEqualTo(asNumber(120));
+    }
+
+    @Test void long_expressions_are_left_associative() {
+        var source = new StringBuilder("x = 1");
+        for (int i = 0; i < 1000; i++)
+            source.append(" + 1 * 2");
+        source.append(";");
+
+        var ast = (Assignment) AstBuilder.parse(source.toString());
+        var expected = (Assignment) new Parser().parseStatement(source);
+
+        assertThat(ast.name()).isEqualTo(expected.name());
+        assertSameTree(ast.expression(), expected.expression());
+        int depth = 0;
+        for (var e = ast.expression(); e instanceof Add a; e = a.left())
+            depth++;
+        assertThat(depth).isEqualTo(1000);
+        assertThat(Interpreter.evaluate(ast, new Environment()).get("x")).isEqualTo(asNumber(2001));
+    }
+
+    @Test void repeated_sources_are_cached() {
+        var source = "x = 40 + 2;";
+
+        assertThat(AstBuilder.parse(source)).isSameAs(AstBuilder.parse(source));
+    }
+
+    @Test void syntax_errors() {
+        assertThatThrownBy(() -> AstBuilder.parse("x = 1 +;"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("1:8:");
+        assertThatThrownBy(() -> AstBuilder.parse("x = 1;\ny = 99999999999;"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("2:5: Number is too large: 99999999999");
+    }
+
+    /** Compares expressions without the recursion of record {@code equals}, which long left spines would overflow. */
+    private static void assertSameTree(Expression actual, Expression expected) {
+        var pending = new ArrayDeque<Expression[]>();
+        pending.push(new Expression[]{actual, expected});
+        while (!pending.isEmpty()) {
+            var pair = pending.pop();
+            assertThat(pair[0].getClass()).isEqualTo(pair[1].getClass());
+            switch (pair[0]) {
+                case Add a -> {
+                    var b = (Add) pair[1];
+                    pending.push(new Expression[]{a.left(), b.left()});
+                    pending.push(new Expression[]{a.right(), b.right()});
+                }
+                case Mult a -> {
+                    var b = (Mult) pair[1];
+                    pending.push(new Expression[]{a.left(), b.left()});
+                    pending.push(new Expression[]{a.right(), b.right()});
+                }
+                case LessThan a -> {
+                    var b = (LessThan) pair[1];
+                    pending.push(new Expression[]{a.left(), b.left()});
+                    pending.push(new Expression[]{a.right(), b.right()});
+                }
+                default -> assertThat(pair[0]).isEqualTo(pair[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package bigStep;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * One program over many rows: {@link BatchEvaluator} against {@code BigStep.evaluate} and the
+ * {@link RegisterCompiler} program called once per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BatchEvaluatorBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    Statement program;
+    BatchEvaluator batch;
+    RegisterCompiler.Program registers;
+    Map<String, int[]> columns;
+    Environment[] environments;
+
+    @Setup public void setUp() {
+        program = AstBuilder.parse("""
+                f = 1; i = 0;
+                while (i < n) { i = i + 1; f = f * i; }
+                if (f < limit) { size = 0; } else { size = f * 2 + n; }
+                """);
+        batch = BatchEvaluator.compile(program);
+        registers = RegisterCompiler.compile(program);
+
+        var random = new Random(42);
+        var n = new int[rows];
+        var limit = new int[rows];
+        environments = new Environment[rows];
+        for (int r = 0; r < rows; r++) {
+            n[r] = random.nextInt(12);
+            limit[r] = random.nextInt(100_000);
+            environments[r] = new Environment(Map.of("n", asNumber(n[r]), "limit", asNumber(limit[r])));
+        }
+        columns = Map.of("n", n, "limit", limit);
+    }
+
+    @Benchmark public Object batch() {
+        return batch.evaluate(columns);
+    }
+
+    @Benchmark public Object evaluatePerRow() {
+        Environment last = null;
+        for (var env : environments)
+            last = program.evaluate(env);
+        return last;
+    }
+
+    @Benchmark public Object registersPerRow() {
+        Environment last = null;
+        for (var env : environments)
+            last = registers.apply(env);
+        return last;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchEvaluatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package bigStep;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchEvaluatorTest {
+
+    private static final String PROGRAM = """
+            f = 1; i = 0;
+            while (i < n) { i = i + 1; f = f * i; }
+            if (f < limit) { size = 0; } else { size = f * 2 + n; }
+            while (size < 0 + 0) { size = size + 1000000; }
+            """;
+
+    @Test void same_result_as_big_step_per_row() {
+        var random = new Random(42);
+        int rows = 3 * BatchEvaluator.BLOCK + 17;
+        var n = new int[rows];
+        var limit = new int[rows];
+        var other = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            n[r] = random.nextInt(15);
+            limit[r] = random.nextInt(100_000);
+            other[r] = r;
+        }
+        var stmt = AstBuilder.parse(PROGRAM);
+
+        var result = BatchEvaluator.evaluate(stmt, Map.of("n", n, "limit", limit, "other", other));
+
+        assertThat(result).containsOnlyKeys("n", "limit", "other", "f", "i", "size");
+        assertThat(result.get("other")).isSameAs(other);
+        for (int r = 0; r < rows; r++) {
+            var env = stmt.evaluate(new Environment(Map.of("n", asNumber(n[r]), "limit", asNumber(limit[r]))));
+            for (var name : new String[]{"n", "limit", "f", "i", "size"})
+                assertThat(result.get(name)[r]).as("%s in row %d", name, r).isEqualTo(asNumber(env.get(name)).value());
+        }
+    }
+
+    @Test void variables_assigned_on_some_paths_need_a_column() {
+        var stmt = AstBuilder.parse("if (x < 0) { y = x; } else { do-nothing }");
+
+        assertThatThrownBy(() -> BatchEvaluator.evaluate(stmt, Map.of("x", new int[]{-1, 1})))
+                .hasMessage("Variable is not assigned on every path, pass it as a column: y");
+
+        var result = BatchEvaluator.evaluate(stmt, Map.of("x", new int[]{-1, 1}, "y", new int[]{7, 7}));
+
+        assertThat(result.get("y")).containsExactly(-1, 7);
+    }
+
+    @Test void rejects_bools_missing_inputs_and_ragged_columns() {
+        assertThatThrownBy(() -> BatchEvaluator.compile(AstBuilder.parse("b = x < 1;")))
+                .hasMessage("Batch evaluation supports Number variables only: b");
+        assertThatThrownBy(() -> BatchEvaluator.evaluate(AstBuilder.parse("x = y;"), Map.of("z", new int[1])))
+                .hasMessage("Nothing found for name: y");
+        var columns = new HashMap<String, int[]>();
+        columns.put("x", new int[2]);
+        columns.put("y", new int[3]);
+        assertThatThrownBy(() -> BatchEvaluator.evaluate(AstBuilder.parse("x = y;"), columns))
+                .hasMessage("Columns have different lengths");
+    }
+}
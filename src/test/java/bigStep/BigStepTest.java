@@ -1,11 +1,16 @@
 package bigStep;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import runtime.Fuel;
+
+import java.time.Duration;
 import java.util.Map;
 
 import static bigStep.BigStep.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class BigStepTest {
 
@@ -80,6 +85,16 @@ class BigStepTest {
         assertThat(result.get("x")).isEqualTo(asNumber(4));
     }
 
+    @Test void assignment_keeps_old_environment() {
+        var env = new Environment(Map.of("x", asNumber(1)));
+        var stmt = new Assignment("x", asNumber(2));
+
+        var result = stmt.evaluate(env);
+
+        assertThat(result.get("x")).isEqualTo(asNumber(2));
+        assertThat(env.get("x")).isEqualTo(asNumber(1));
+    }
+
     @Test void evaluate_if() {
         var stmt = new If(
                 new LessThan(
@@ -115,4 +130,76 @@ class BigStepTest {
 
         assertThat(result.get("x")).isEqualTo(asNumber(4));
     }
-}
\ No newline at end of file
+
+    @Test @Timeout(30) void evaluate_long_while() {
+        var env = new Environment(Map.of("x", asNumber(0)));
+        var stmt = new While(
+                new LessThan(new Variable("x"), asNumber(10_000_000)),
+                new Assignment("x", new Add(new Variable("x"), asNumber(1)))
+        );
+
+        assertThat(stmt.evaluate(env).get("x")).isEqualTo(asNumber(10_000_000));
+        assertThat(Interpreter.evaluate(stmt, env).get("x")).isEqualTo(asNumber(10_000_000));
+    }
+
+    @Test void interpreter_evaluates_deep_sequences() {
+        var init = new Assignment("x", asNumber(0));
+        var step = new Assignment("x", new Add(new Variable("x"), asNumber(1)));
+        Statement right = step;
+        Statement left = init;
+        for (int i = 0; i < 1_000_000; i++) {
+            right = new Sequence(step, right);
+            left = new Sequence(left, step);
+        }
+
+        assertThat(Interpreter.evaluate(new Sequence(init, right), new Environment()).get("x"))
+                .isEqualTo(asNumber(1_000_001));
+        assertThat(Interpreter.evaluate(left, new Environment()).get("x"))
+                .isEqualTo(asNumber(1_000_000));
+    }
+
+    @Test void arithmetic_returns_canonical_values() {
+        var env = new Environment(Map.of("x", asNumber(20)));
+
+        assertThat(new Add(new Variable("x"), asNumber(22)).evaluate(env)).isSameAs(asNumber(42));
+        assertThat(new Mult(new Variable("x"), new Variable("x")).evalInt(env)).isEqualTo(400);
+        assertThat(new LessThan(asNumber(1), new Variable("x")).evaluate(env)).isSameAs(Bool.TRUE);
+        assertThat(new Add(asNumber(1_000_000), asNumber(1)).evaluate(env)).isEqualTo(asNumber(1_000_001));
+    }
+
+    @Test void conditions_must_be_bool() {
+        var stmt = new While(asNumber(1), new Assignment("x", asNumber(1)));
+
+        assertThatThrownBy(() -> stmt.evaluate(new Environment())).hasMessage("Expected Bool, got: 1");
+        assertThatThrownBy(() -> Interpreter.evaluate(stmt, new Environment())).hasMessage("Expected Bool, got: 1");
+    }
+
+    @Test void interpreter_pauses_when_out_of_fuel_and_resumes() {
+        var stmt = new Sequence(
+                new Assignment("x", asNumber(0)),
+                new While(new LessThan(new Variable("x"), asNumber(1000)),
+                        new Assignment("x", new Add(new Variable("x"), asNumber(1)))));
+
+        var outcome = Interpreter.evaluate(stmt, new Environment(), Fuel.steps(100));
+        int slices = 1;
+        while (outcome instanceof Interpreter.OutOfFuel paused) {
+            assertThat(paused.interpreter().environment().get("x")).isEqualTo(asNumber(100 * slices));
+            outcome = paused.resume(Fuel.steps(100));
+            slices++;
+        }
+
+        assertThat(slices).isEqualTo(11);
+        assertThat(((Interpreter.Finished) outcome).environment().get("x")).isEqualTo(asNumber(1000));
+    }
+
+    @Test @Timeout(10) void deadline_preempts_an_endless_loop() {
+        var stmt = new While(Bool.TRUE, new Assignment("x", new Add(new Variable("x"), asNumber(1))));
+        var env = new Environment(Map.of("x", asNumber(0)));
+
+        var outcome = Interpreter.evaluate(stmt, env, Fuel.until(Duration.ofMillis(20)));
+
+        assertThat(outcome).isInstanceOf(Interpreter.OutOfFuel.class);
+        var paused = (Interpreter.OutOfFuel) outcome;
+        assertThat(paused.resume(Fuel.steps(10))).isInstanceOf(Interpreter.OutOfFuel.class);
+    }
+}
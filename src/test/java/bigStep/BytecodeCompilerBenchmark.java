@@ -0,0 +1,55 @@
+package bigStep;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static bigStep.BigStep.*;
+
+/**
+ * A numeric loop through {@code BigStep.evaluate} and through the class produced by {@link BytecodeCompiler}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BytecodeCompilerBenchmark {
+
+    @Param({"10", "10000"})
+    int n;
+
+    Statement program;
+    Function<Environment, Environment> compiled;
+    Environment env;
+
+    @Setup public void setUp() {
+        program = new While(
+                new LessThan(new Variable("i"), new Variable("n")),
+                new Sequence(
+                        new Assignment("s", new Add(new Variable("s"), new Mult(new Variable("i"), new Variable("i")))),
+                        new Assignment("i", new Add(new Variable("i"), asNumber(1)))));
+        compiled = BytecodeCompiler.compile(program);
+        env = new Environment(Map.of("i", asNumber(0), "s", asNumber(0), "n", asNumber(n)));
+    }
+
+    @Benchmark public Object evaluate() {
+        return program.evaluate(env);
+    }
+
+    @Benchmark public Object bytecode() {
+        return compiled.apply(env);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BytecodeCompilerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
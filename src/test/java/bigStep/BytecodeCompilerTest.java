@@ -0,0 +1,144 @@
+package bigStep;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import runtime.Fuel;
+
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BytecodeCompilerTest {
+
+    @Test void evaluate_if() {
+        var stmt = new If(
+                new LessThan(
+                        new Mult(asNumber(2), asNumber(0)),
+                        new Add(asNumber(2), asNumber(0))),
+                new Sequence(
+                        new Assignment("x", asNumber(1)),
+                        new Assignment("y", asNumber(2))),
+                new Sequence(
+                        new Assignment("x", asNumber(3)),
+                        new Assignment("y", asNumber(40000))));
+
+        var result = BytecodeCompiler.compile(stmt).apply(new Environment());
+
+        assertThat(result.toString()).isEqualTo("{x=1, y=2}");
+    }
+
+    @Test void evaluate_bools() {
+        var stmt = new Sequence(
+                new Assignment("small", new LessThan(new Variable("x"), asNumber(10))),
+                new If(new Variable("small"),
+                        new Assignment("y", new Bool(true)),
+                        new Assignment("z", asNumber(-1_000_000))));
+        var compiled = BytecodeCompiler.compile(stmt);
+
+        for (int x : new int[]{5, 50}) {
+            var env = new Environment(Map.of("x", asNumber(x)));
+            assertThat(compiled.apply(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test void evaluate_copy_of_a_bool_input() {
+        var stmt = AstBuilder.parse("y = flag;");
+        var env = new Environment(Map.of("flag", Bool.TRUE));
+
+        assertThat(BytecodeCompiler.compile(stmt).apply(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+    }
+
+    @Test void types_do_not_depend_on_statement_order() {
+        var stmt = AstBuilder.parse("y = x; if (x) { z = 1; } else { z = 2; }");
+        var compiled = BytecodeCompiler.compile(stmt);
+
+        for (var x : new Bool[]{Bool.TRUE, Bool.FALSE}) {
+            var env = new Environment(Map.of("x", x));
+            assertThat(compiled.apply(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test @Timeout(10) void evaluate_long_while() {
+        var env = new Environment(Map.of("x", asNumber(0), "s", asNumber(0)));
+        var stmt = new While(
+                new LessThan(new Variable("x"), asNumber(100_000_000)),
+                new Sequence(
+                        new Assignment("s", new Add(new Variable("s"), new Mult(new Variable("x"), asNumber(3)))),
+                        new Assignment("x", new Add(new Variable("x"), asNumber(1)))));
+
+        var result = BytecodeCompiler.compile(stmt).apply(env);
+
+        int s = 0;
+        for (int x = 0; x < 100_000_000; x++)
+            s += x * 3;
+        assertThat(result.get("x")).isEqualTo(asNumber(100_000_000));
+        assertThat(result.get("s")).isEqualTo(asNumber(s));
+    }
+
+    @Test void loops_take_fuel() {
+        var stmt = AstBuilder.parse("x = 0; while (x < 1000) { x = x + 1; }");
+
+        assertThat(BytecodeCompiler.compile(stmt, Fuel.steps(1000)).apply(new Environment()).get("x")).isEqualTo(asNumber(1000));
+        assertThatThrownBy(() -> BytecodeCompiler.compile(stmt, Fuel.steps(999)).apply(new Environment()))
+                .isInstanceOf(Fuel.ExhaustedException.class);
+    }
+
+    @Test void rejects_missing_input() {
+        var stmt = new Assignment("x", new Add(new Variable("y"), asNumber(1)));
+
+        assertThatThrownBy(() -> BytecodeCompiler.compile(stmt).apply(new Environment()))
+                .hasMessage("Nothing found for name: y");
+    }
+
+    @Test void overwrites_variables_of_another_type() {
+        var stmt = AstBuilder.parse("x = 1;");
+        var env = new Environment(Map.of("x", Bool.TRUE));
+
+        assertThat(BytecodeCompiler.compile(stmt).apply(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+    }
+
+    @Test void reads_variables_assigned_on_some_paths() {
+        var stmt = AstBuilder.parse("if (c) { x = 1; } else { do-nothing } y = x;");
+        var compiled = BytecodeCompiler.compile(stmt);
+
+        var env = new Environment(Map.of("c", Bool.TRUE));
+        assertThat(compiled.apply(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        assertThatThrownBy(() -> compiled.apply(new Environment(Map.of("c", Bool.FALSE))))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Nothing found for name: x");
+    }
+
+    @Test void evaluate_long_program() {
+        Statement stmt = new Assignment("x", new Add(new Variable("x"), asNumber(19_999)));
+        for (int i = 19_998; i > 0; i--)
+            stmt = new Sequence(new Assignment("x", new Add(new Variable("x"), asNumber(i))), stmt);
+        stmt = new Sequence(new Assignment("x", asNumber(0)), stmt);
+
+        var compiled = BytecodeCompiler.compile(stmt);
+
+        assertThat(compiled).isInstanceOf(BytecodeCompiler.Compiled.class);
+        assertThat(compiled.apply(new Environment()).toString()).isEqualTo("{x=199990000}");
+    }
+
+    @Test void evaluate_loop_too_large_for_a_method() {
+        Statement body = new Assignment("i", new Add(new Variable("i"), asNumber(1)));
+        for (int i = 0; i < 20_000; i++)
+            body = new Sequence(new Assignment("x", new Add(new Variable("x"), asNumber(1))), body);
+        var stmt = new While(new LessThan(new Variable("i"), asNumber(3)), body);
+        var env = new Environment(Map.of("i", asNumber(0), "x", asNumber(0)));
+
+        var compiled = BytecodeCompiler.compile(stmt);
+
+        assertThat(compiled).isNotInstanceOf(BytecodeCompiler.Compiled.class);
+        assertThat(compiled.apply(env).toString()).isEqualTo("{i=3, x=60000}");
+    }
+
+    @Test void rejects_type_errors() {
+        var stmt = new Assignment("x", new Add(new Bool(true), asNumber(1)));
+
+        assertThatThrownBy(() -> BytecodeCompiler.compile(stmt))
+                .hasMessage("Expected Number, got: true");
+    }
+}
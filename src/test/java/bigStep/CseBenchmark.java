@@ -0,0 +1,46 @@
+package bigStep;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * A loop whose body repeats a loop-invariant subtree of {@code 2^depth} nodes, as generated code
+ * tends to: the tree-walking evaluator against the {@link CseEvaluator}, which computes the shared
+ * subtree once per run and only the parts that read {@code i} on every iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CseBenchmark {
+
+    @Param({"2", "6", "10"})
+    int depth;
+
+    Statement program;
+    CseEvaluator.Program cse;
+    Environment env;
+
+    @Setup public void setUp() {
+        var invariant = "x * y + z";
+        for (int i = 0; i < depth; i++)
+            invariant = "(" + invariant + ") * (" + invariant + ") + w";
+        program = AstBuilder.parse("i = 0; s = 0; while (i < 50) { s = s + (" + invariant + ") * i; t = " + invariant + "; i = i + 1; }");
+        cse = CseEvaluator.compile(program);
+        env = new Environment(Map.of("x", asNumber(2), "y", asNumber(3), "z", asNumber(4), "w", asNumber(5)));
+    }
+
+    @Benchmark public Object evaluate() {
+        return program.evaluate(env);
+    }
+
+    @Benchmark public Object cse() {
+        return cse.evaluate(env);
+    }
+}
@@ -0,0 +1,65 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CseEvaluatorTest {
+
+    @Test void reuses_values_until_a_free_variable_changes() {
+        var program = CseEvaluator.compile(AstBuilder.parse("a = (x + y) * (x + y); b = (x + y) * 2; x = x + 1; c = x + y;"));
+
+        var result = program.evaluate(new Environment(Map.of("x", asNumber(1), "y", asNumber(2))));
+
+        assertThat(result.get("a")).isEqualTo(asNumber(9));
+        assertThat(result.get("b")).isEqualTo(asNumber(6));
+        assertThat(result.get("c")).isEqualTo(asNumber(4));
+        // x + y, both products, x + 1 and x + y again after x changed
+        assertThat(program.computations()).isEqualTo(5);
+    }
+
+    @Test void each_run_starts_afresh() {
+        var program = CseEvaluator.compile(AstBuilder.parse("a = x * x;"));
+
+        assertThat(program.evaluate(new Environment(Map.of("x", asNumber(3)))).get("a")).isEqualTo(asNumber(9));
+        assertThat(program.evaluate(new Environment(Map.of("x", asNumber(4)))).get("a")).isEqualTo(asNumber(16));
+        assertThat(program.computations()).isEqualTo(2);
+    }
+
+    @Test void loops_recompute_what_their_body_changes() {
+        var program = CseEvaluator.compile(AstBuilder.parse("i = 0; s = 0; while (i < n) { s = s + k * k; i = i + 1; }"));
+
+        var result = program.evaluate(new Environment(Map.of("n", asNumber(10), "k", asNumber(3))));
+
+        assertThat(result.get("s")).isEqualTo(asNumber(90));
+        // k * k once; i < n eleven times; s + k * k and i + 1 ten times each
+        assertThat(program.computations()).isEqualTo(32);
+    }
+
+    @Test void agrees_with_evaluate() {
+        for (var name : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var program = AstBuilder.parse(BenchmarkPrograms.source(name, 10));
+
+            var result = CseEvaluator.compile(program).evaluate(new Environment());
+
+            assertThat(result.toString()).as(name).isEqualTo(program.evaluate(new Environment()).toString());
+        }
+    }
+
+    @Test void reports_the_same_errors() {
+        var unbound = CseEvaluator.compile(AstBuilder.parse("x = y + 1;"));
+        var notBool = CseEvaluator.compile(AstBuilder.parse("if (x) { y = 1; } else { y = 2; }"));
+
+        assertThatThrownBy(() -> unbound.evaluate(new Environment()))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Nothing found for name: y");
+        assertThatThrownBy(() -> notBool.evaluate(new Environment(Map.of("x", asNumber(1)))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Expected Bool, got: 1");
+    }
+}
@@ -0,0 +1,59 @@
+package bigStep;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * One assignment step ({@code copy()} + {@code set()}) on an environment with {@code size} variables:
+ * the persistent {@link Environment} against the previous full {@link HashMap} copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvironmentBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int size;
+
+    Map<String, Expression> hashMap;
+    Environment environment;
+    int counter;
+
+    @Setup public void setUp() {
+        hashMap = new HashMap<>();
+        environment = new Environment();
+        for (int i = 0; i < size; i++) {
+            hashMap.put("x" + i, asNumber(i));
+            environment.set("x" + i, asNumber(i));
+        }
+    }
+
+    @Benchmark public Object hashMapCopy() {
+        var copy = new HashMap<>(hashMap);
+        copy.put("x" + (counter++ % size), asNumber(counter));
+        return copy;
+    }
+
+    @Benchmark public Object persistentCopy() {
+        var copy = environment.copy();
+        copy.set("x" + (counter++ % size), asNumber(counter));
+        return copy;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EnvironmentBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import runtime.ExecutionService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * Programs per second through {@link ExecutionService} as the number of worker threads grows.
+ * Throughput should scale with {@code threads} up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionServiceBenchmark {
+
+    private static final int PROGRAMS = 256;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"platform", "virtual"})
+    String kind;
+
+    Statement program;
+    ExecutionService service;
+
+    @Setup public void setUp() {
+        program = AstBuilder.parse(BenchmarkPrograms.source("nested", 100));
+        service = kind.equals("platform")
+                ? ExecutionService.onPlatformThreads(threads, 2 * threads)
+                : ExecutionService.onVirtualThreads(3 * threads);
+    }
+
+    @TearDown public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark @OperationsPerInvocation(PROGRAMS)
+    public Object evaluate() {
+        var futures = new CompletableFuture<?>[PROGRAMS];
+        for (int i = 0; i < PROGRAMS; i++)
+            futures[i] = service.submit(() -> program.evaluate(new Environment()));
+        return CompletableFuture.allOf(futures).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutionServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * A long straight-line program re-run after an edit to one of its last ten statements, alternating
+ * between two versions: the {@link Interpreter} from scratch against the {@link IncrementalEvaluator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IncrementalBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    Statement[] versions;
+    IncrementalEvaluator incremental;
+    int next;
+
+    @Setup public void setUp() {
+        var source = BenchmarkPrograms.source("chain", size);
+        var edit = source.lastIndexOf("x = x + " + (size - 10) + ";");
+        versions = new Statement[]{
+                AstBuilder.parse(source),
+                AstBuilder.parse(source.substring(0, edit) + "x = x + 1;" + source.substring(source.indexOf(';', edit) + 1))};
+        incremental = new IncrementalEvaluator(new Environment());
+        incremental.evaluate(versions[0]);
+    }
+
+    @Benchmark public Object evaluate() {
+        return Interpreter.evaluate(versions[next ^= 1], new Environment());
+    }
+
+    @Benchmark public Object incremental() {
+        return incremental.evaluate(versions[next ^= 1]);
+    }
+}
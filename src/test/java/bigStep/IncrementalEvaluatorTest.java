@@ -0,0 +1,120 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IncrementalEvaluatorTest {
+
+    @Test void agrees_with_evaluate() {
+        for (var name : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var program = AstBuilder.parse(BenchmarkPrograms.source(name, 10));
+            var evaluator = new IncrementalEvaluator(new Environment());
+
+            var result = evaluator.evaluate(program);
+
+            assertThat(result.toString()).as(name).isEqualTo(program.evaluate(new Environment()).toString());
+            evaluator.evaluate(AstBuilder.parse(BenchmarkPrograms.source(name, 10)));
+            assertThat(evaluator.executed()).as(name).isZero();
+        }
+    }
+
+    @Test void resumes_at_the_first_edited_statement() {
+        var evaluator = new IncrementalEvaluator(new Environment(Map.of("n", asNumber(3))));
+        evaluator.evaluate(AstBuilder.parse("a = 1; b = a + n; c = b * 2; d = n;"));
+
+        var result = evaluator.evaluate(AstBuilder.parse("a = 1; b = a + n; c = b * 3; d = n;"));
+
+        assertThat(result.get("c")).isEqualTo(asNumber(12));
+        assertThat(result.get("d")).isEqualTo(asNumber(3));
+        assertThat(evaluator.executed()).isEqualTo(1);
+    }
+
+    @Test void reruns_only_statements_whose_reads_changed() {
+        var evaluator = new IncrementalEvaluator(new Environment());
+        evaluator.evaluate(AstBuilder.parse("a = 1; b = 2; c = a + 1; d = b + 1; e = c + d;"));
+
+        var result = evaluator.evaluate(AstBuilder.parse("a = 5; b = 2; c = a + 1; d = b + 1; e = c + d;"));
+
+        // a, c and e; b and d read nothing that changed
+        assertThat(evaluator.executed()).isEqualTo(3);
+        assertThat(result.get("e")).isEqualTo(asNumber(9));
+    }
+
+    @Test void an_edit_with_the_same_effect_stops_there() {
+        var evaluator = new IncrementalEvaluator(new Environment());
+        evaluator.evaluate(AstBuilder.parse("a = 2; b = a * a; i = 0; while (i < b) { i = i + 1; }"));
+
+        var result = evaluator.evaluate(AstBuilder.parse("a = 1 + 1; b = a * a; i = 0; while (i < b) { i = i + 1; }"));
+
+        assertThat(evaluator.executed()).isEqualTo(1);
+        assertThat(result.get("i")).isEqualTo(asNumber(4));
+    }
+
+    @Test void reuses_statements_after_an_insertion() {
+        var evaluator = new IncrementalEvaluator(new Environment());
+        evaluator.evaluate(AstBuilder.parse("a = 1; b = a + 1; c = b + 1;"));
+
+        var result = evaluator.evaluate(AstBuilder.parse("a = 1; z = 7; b = a + 1; c = b + 1;"));
+
+        assertThat(evaluator.executed()).isEqualTo(1);
+        assertThat(result.toString()).isEqualTo(new Environment(Map.of(
+                "a", asNumber(1), "z", asNumber(7), "b", asNumber(2), "c", asNumber(3))).toString());
+    }
+
+    @Test void a_failed_run_keeps_the_previous_results() {
+        var evaluator = new IncrementalEvaluator(new Environment());
+        evaluator.evaluate(AstBuilder.parse("a = 1; b = a + 1;"));
+
+        assertThatThrownBy(() -> evaluator.evaluate(AstBuilder.parse("a = 1; b = a + 1; c = missing;")))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Nothing found for name: missing");
+        evaluator.evaluate(AstBuilder.parse("a = 1; b = a + 1;"));
+        assertThat(evaluator.executed()).isZero();
+    }
+
+    @Test void an_edit_near_the_end_of_a_long_program_reruns_only_the_tail() {
+        var evaluator = new IncrementalEvaluator(new Environment());
+        var program = chain(10_000, -1);
+        var expected = program.evaluate(new Environment());
+        assertThat(evaluator.evaluate(program).toString()).isEqualTo(expected.toString());
+
+        var edited = chain(10_000, 9_990);
+        var result = evaluator.evaluate(edited);
+
+        assertThat(evaluator.executed()).isEqualTo(10);
+        assertThat(result.toString()).isEqualTo(edited.evaluate(new Environment()).toString());
+    }
+
+    /** {@code size} statements, each adding to the previous variable; the one at {@code edit} adds 1 more. */
+    private static Statement chain(int size, int edit) {
+        var statements = new ArrayList<Statement>();
+        statements.add(new Assignment(name(0), asNumber(1)));
+        for (int i = 1; i < size; i++)
+            statements.add(new Assignment(name(i), new Add(new Variable(name(i - 1)), asNumber(i == edit ? i + 1 : i))));
+        return block(statements);
+    }
+
+    private static Statement block(List<Statement> statements) {
+        var result = statements.getLast();
+        for (int i = statements.size() - 2; i >= 0; i--)
+            result = new Sequence(statements.get(i), result);
+        return result;
+    }
+
+    private static String name(int i) {
+        var sb = new StringBuilder("v");
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternerTest {
+
+    @Test void equal_subtrees_become_one_instance() {
+        var interner = new Interner();
+
+        var program = (Sequence) interner.intern(AstBuilder.parse("a = (x + y) * (x + y); b = x + y;"));
+
+        var product = (Mult) ((Assignment) program.first()).expression();
+        assertThat(product.left()).isSameAs(product.right());
+        assertThat(((Assignment) program.second()).expression()).isSameAs(product.left());
+        assertThat(interner.size()).isEqualTo(7);
+    }
+
+    @Test void interning_is_shared_between_calls() {
+        var interner = new Interner();
+
+        var first = interner.intern(AstBuilder.parse("x = y + 1;"));
+        var second = interner.intern(AstBuilder.parse("x = y + 1;"));
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test void distinguishes_values_and_kinds() {
+        var interner = new Interner();
+
+        var sum = interner.intern(new Add(new Variable("x"), asNumber(1)));
+        var product = interner.intern(new Mult(new Variable("x"), asNumber(1)));
+        var other = interner.intern(new Add(new Variable("x"), asNumber(2)));
+
+        assertThat(sum).isNotSameAs(product).isNotSameAs(other);
+        assertThat(((Add) sum).left()).isSameAs(((Mult) product).left());
+    }
+
+    @Test void interned_programs_evaluate_the_same() {
+        for (var name : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var program = AstBuilder.parse(BenchmarkPrograms.source(name, 10));
+
+            var interned = new Interner().intern(program);
+
+            assertThat(interned).as(name).isEqualTo(program);
+            assertThat(interned.evaluate(new Environment()).toString()).as(name)
+                    .isEqualTo(program.evaluate(new Environment()).toString());
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package bigStep;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ParserTest {
 
@@ -16,4 +21,53 @@ class ParserTest {
         var resul = ast.evaluate(env);
         System.out.println(resul);
     }
+
+    @Test void parse_expression_precedence() {
+        var ast = new Parser().parseExpression("12 + x * (y + 3) < big");
+
+        assertThat(ast).isEqualTo(new LessThan(
+                new Add(asNumber(12), new Mult(new Variable("x"), new Add(new Variable("y"), asNumber(3)))),
+                new Variable("big")));
+    }
+
+    @Test void parse_program() {
+        var source = """
+                i = 0; fact = 1;
+                while (i < 5) {
+                  i = i + 1;
+                  fact = fact * i;
+                }
+                if (fact < 100) { small = true; } else { small = false; do-nothing; }
+                """;
+
+        var ast = new Parser().parseStatement(source);
+        var result = ast.evaluate(new Environment());
+
+        assertThat(result.get("fact")).isEqualTo(asNumber(120));
+        assertThat(result.get("small")).isEqualTo(new Bool(false));
+        assertThat(ast.toString()).isEqualTo(
+                "i = 0; fact = 1; while ( i < 5 ) { i = i + 1; fact = fact * i }; "
+                + "if (fact < 100) { small = true } else { small = false; do-nothing }");
+    }
+
+    @Test void report_error_position() {
+        assertThatThrownBy(() -> new Parser().parseStatement("x = 1;\nwhile (x < 3 { x = x + 1; }"))
+                .isInstanceOf(Parser.ParseException.class)
+                .hasMessage("2:14: Expected RPAREN, got '{'");
+        assertThatThrownBy(() -> new Parser().parseStatement("x = 1 +"))
+                .hasMessage("1:8: Expected expression, got end of input");
+        assertThatThrownBy(() -> new Parser().parseStatement("x = 99999999999;"))
+                .hasMessage("1:5: Number is too large: 99999999999");
+    }
+
+    @Test @Timeout(5) void parse_large_program() {
+        var source = new StringBuilder("x = 0;\n");
+        while (source.length() < 4_000_000)
+            source.append("x = x + 1;\n");
+
+        var ast = new Parser().parseStatement(source);
+
+        assertThat(Interpreter.evaluate(ast, new Environment()).get("x"))
+                .isEqualTo(asNumber((source.length() - "x = 0;\n".length()) / "x = x + 1;\n".length()));
+    }
 }
\ No newline at end of file
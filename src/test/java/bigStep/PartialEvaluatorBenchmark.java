@@ -0,0 +1,52 @@
+package bigStep;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static bigStep.BigStep.*;
+
+/**
+ * A program whose configuration is fixed and whose input {@code x} varies: the original run on the
+ * full environment against the {@link PartialEvaluator} residual run on {@code x} alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PartialEvaluatorBenchmark {
+
+    @Param({"4", "16", "48"})
+    int degree;
+
+    Statement program;
+    Statement residual;
+    Environment full;
+    Environment dynamic;
+
+    @Setup public void setUp() {
+        program = AstBuilder.parse("""
+                i = 0; r = 0;
+                while (i < degree) { r = r * x + c; i = i + 1; }
+                if (r < limit) { ok = true; } else { ok = false; }
+                if (verbose) { steps = degree * 2; } else { steps = 0; }
+                """);
+        var known = new Environment(Map.of(
+                "degree", asNumber(degree), "c", asNumber(3), "limit", asNumber(1000), "verbose", Bool.FALSE));
+        residual = PartialEvaluator.specialize(program, known);
+        full = known.copy();
+        full.set("x", asNumber(2));
+        dynamic = new Environment(Map.of("x", asNumber(2)));
+    }
+
+    @Benchmark public Object original() {
+        return program.evaluate(full);
+    }
+
+    @Benchmark public Object residual() {
+        return residual.evaluate(dynamic);
+    }
+}
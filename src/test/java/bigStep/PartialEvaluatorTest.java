@@ -0,0 +1,77 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartialEvaluatorTest {
+
+    @Test void folds_known_variables_and_decided_ifs() {
+        var program = AstBuilder.parse("y = a * b + x; if (a < b) { z = x; } else { z = 0; }");
+
+        var residual = PartialEvaluator.specialize(program, env(Map.of("a", asNumber(2), "b", asNumber(3))));
+
+        assertThat(residual.toString()).isEqualTo("y = 6 + x; z = x; a = 2; b = 3");
+        assertSameResult(program, residual, Map.of("a", asNumber(2), "b", asNumber(3)), Map.of("x", asNumber(5)));
+    }
+
+    @Test void unrolls_loops_with_known_trip_counts() {
+        var program = AstBuilder.parse("i = 0; s = 0; while (i < n) { s = s + x; i = i + 1; }");
+
+        var residual = PartialEvaluator.specialize(program, env(Map.of("n", asNumber(3))));
+
+        assertThat(residual.toString()).isEqualTo("s = x; s = s + x; s = s + x; n = 3; i = 3");
+        assertSameResult(program, residual, Map.of("n", asNumber(3)), Map.of("x", asNumber(7)));
+    }
+
+    @Test void keeps_loops_beyond_the_limit() {
+        var program = AstBuilder.parse("i = 0; s = 0; while (i < n) { s = s + x; i = i + 1; }");
+
+        var residual = PartialEvaluator.specialize(program, env(Map.of("n", asNumber(100))), 10);
+
+        assertThat(residual.toString()).isEqualTo("s = 0; i = 0; while ( i < 100 ) { s = s + x; i = i + 1 }; n = 100");
+        assertSameResult(program, residual, Map.of("n", asNumber(100)), Map.of("x", asNumber(7)));
+    }
+
+    @Test void materializes_static_values_where_branches_merge() {
+        var program = AstBuilder.parse("if (x < 1) { y = 1; c = true; } else { y = 2; c = true; } z = y + k; w = c;");
+        var known = Map.<String, Expression>of("k", asNumber(10));
+
+        var residual = PartialEvaluator.specialize(program, env(known));
+
+        assertThat(residual.toString()).isEqualTo("if (x < 1) { y = 1 } else { y = 2 }; z = y + 10; k = 10; c = true; w = true");
+        assertSameResult(program, residual, known, Map.of("x", asNumber(0)));
+        assertSameResult(program, residual, known, Map.of("x", asNumber(5)));
+    }
+
+    @Test void fully_known_programs_become_assignments() {
+        for (var name : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var program = AstBuilder.parse(BenchmarkPrograms.source(name, 5));
+
+            var residual = PartialEvaluator.specialize(program, new Environment(), 1_000);
+
+            assertThat(residual.toString()).as(name).doesNotContain("while", "if", "+", "*");
+            assertThat(residual.evaluate(new Environment()).toString()).as(name)
+                    .isEqualTo(program.evaluate(new Environment()).toString());
+        }
+    }
+
+    private static Environment env(Map<String, Expression> values) {
+        return new Environment(values);
+    }
+
+    private static void assertSameResult(Statement program, Statement residual,
+                                         Map<String, Expression> known, Map<String, Expression> dynamic) {
+        var all = new HashMap<>(known);
+        all.putAll(dynamic);
+        var expected = program.evaluate(env(all));
+        var actual = residual.evaluate(env(dynamic));
+        for (var name : new String[]{"a", "b", "c", "i", "k", "n", "s", "w", "x", "y", "z"})
+            assertThat(actual.map.get(name)).as(name).isEqualTo(expected.map.get(name));
+    }
+}
@@ -0,0 +1,42 @@
+package bigStep;
+
+import org.junit.jupiter.api.Test;
+import runtime.Profile;
+
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfilerTest {
+
+    private static final String SOURCE = "x = 0; while (x < 10) { x = x + 1; }";
+
+    @Test void counts_every_node() {
+        var program = AstBuilder.parse(SOURCE);
+        var profile = new Profile();
+
+        var result = Profiler.instrument(program, profile).evaluate(new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(10));
+        var loop = profile.root().child("while ( x < 10 ) { x = x + 1 }");
+        assertThat(loop.visits()).isEqualTo(1);
+        assertThat(loop.child("x < 10").visits()).isEqualTo(11);
+        assertThat(loop.child("x = x + 1").visits()).isEqualTo(10);
+        assertThat(loop.child("x = x + 1").child("x + 1").child("x").visits()).isEqualTo(10);
+        assertThat(profile.root().child("x = 0").visits()).isEqualTo(1);
+        assertThat(loop.nanos()).isPositive();
+        assertThat(profile.collapsed()).contains("while ( x < 10 ) { x = x + 1 };x = x + 1;x + 1");
+    }
+
+    @Test void leaves_the_program_untouched() {
+        var program = AstBuilder.parse(SOURCE);
+
+        var instrumented = Profiler.instrument(program, new Profile());
+
+        assertThat(program).isEqualTo(AstBuilder.parse(SOURCE));
+        assertThat(instrumented.toString()).isEqualTo(program.toString());
+        assertThat(instrumented.evaluate(new Environment(Map.of())).get("x"))
+                .isEqualTo(program.evaluate(new Environment()).get("x"));
+    }
+}
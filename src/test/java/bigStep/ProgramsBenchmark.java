@@ -0,0 +1,70 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+import runtime.Fuel;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static bigStep.BigStep.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgramsBenchmark {
+
+    @Param({"factorial", "nested", "chain", "wide", "deep"})
+    String program;
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    Statement statement;
+    Resolver.Program resolved;
+    Function<Environment, Environment> bytecode;
+    RegisterCompiler.Program registers;
+    SpecializingInterpreter.Program specializing;
+    Environment env;
+
+    @Setup public void setUp() {
+        statement = AstBuilder.parse(BenchmarkPrograms.source(program, size));
+        resolved = Resolver.resolve(statement);
+        bytecode = BytecodeCompiler.compile(statement);
+        registers = RegisterCompiler.compile(statement);
+        specializing = SpecializingInterpreter.prepare(statement);
+        env = new Environment();
+    }
+
+    @Benchmark public Object evaluate() {
+        return statement.evaluate(env);
+    }
+
+    @Benchmark public Object interpreter() {
+        return Interpreter.evaluate(statement, env);
+    }
+
+    @Benchmark public Object fueled() {
+        return Interpreter.evaluate(statement, env, Fuel.until(Duration.ofHours(1)));
+    }
+
+    @Benchmark public Object resolved() {
+        return resolved.evaluate(env);
+    }
+
+    @Benchmark public Object specializing() {
+        return specializing.evaluate(env);
+    }
+
+    @Benchmark public Object bytecode() {
+        return bytecode.apply(env);
+    }
+
+    @Benchmark public Object registers() {
+        return registers.apply(env);
+    }
+}
@@ -0,0 +1,193 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import runtime.Fuel;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RegisterCompilerTest {
+
+    @Test void fuses_increments_and_loop_conditions() {
+        var stmt = AstBuilder.parse("while (i < 10) { i = i + 1; }");
+
+        var program = RegisterCompiler.compile(stmt);
+
+        assertThat(program.disassemble()).isEqualTo("""
+                0: CHECK 1 0
+                3: JUMP 9
+                5: ADDK 0 0 1
+                9: JLTK 0 10 5
+                13: HALT
+                """);
+        assertThat(program.apply(new Environment(Map.of("i", asNumber(0)))).get("i")).isEqualTo(asNumber(10));
+    }
+
+    @Test void same_result_as_big_step() {
+        for (var program : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var stmt = AstBuilder.parse(BenchmarkPrograms.source(program, 50));
+
+            var result = RegisterCompiler.compile(stmt).apply(new Environment());
+
+            assertThat(result).hasToString(stmt.evaluate(new Environment()).toString());
+        }
+    }
+
+    @Test void evaluate_bools_and_branches() {
+        var stmt = AstBuilder.parse("""
+                small = x < 10;
+                if (small) { y = true; } else { z = x * 2 + 1; w = x < 100 + x * 0; }
+                """);
+        var program = RegisterCompiler.compile(stmt);
+
+        for (int x : new int[]{5, 50}) {
+            var env = new Environment(Map.of("x", asNumber(x)));
+            assertThat(program.apply(env)).hasToString(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test void evaluate_copy_of_a_bool_input() {
+        var stmt = AstBuilder.parse("y = flag;");
+        var env = new Environment(Map.of("flag", Bool.TRUE));
+
+        assertThat(RegisterCompiler.compile(stmt).apply(env)).hasToString(stmt.evaluate(env).toString());
+    }
+
+    @Test void types_do_not_depend_on_statement_order() {
+        var stmt = AstBuilder.parse("y = x; if (x) { z = 1; } else { z = 2; }");
+        var program = RegisterCompiler.compile(stmt);
+
+        for (var x : new Bool[]{Bool.TRUE, Bool.FALSE}) {
+            var env = new Environment(Map.of("x", x));
+            assertThat(program.apply(env)).hasToString(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test void boxed_variables_round_trip_through_bytes() {
+        var program = RegisterCompiler.compile(AstBuilder.parse("y = x; z = y;"));
+
+        var copy = RegisterCompiler.Program.deserialize(program.serialize());
+
+        for (var x : new Expression[]{asNumber(7), Bool.FALSE})
+            assertThat(copy.apply(new Environment(Map.of("x", x))).get("z")).isEqualTo(x);
+    }
+
+    @Test void keeps_variables_assigned_on_some_paths_only() {
+        var stmt = AstBuilder.parse("if (x < 0) { y = 1; } else { do-nothing }");
+        var program = RegisterCompiler.compile(stmt);
+
+        assertThat(program.apply(new Environment(Map.of("x", asNumber(1))))).hasToString("{x=1}");
+        assertThat(program.apply(new Environment(Map.of("x", asNumber(1), "y", asNumber(7))))).hasToString(
+                stmt.evaluate(new Environment(Map.of("x", asNumber(1), "y", asNumber(7)))).toString());
+        assertThat(program.apply(new Environment(Map.of("x", asNumber(-1)))).get("y")).isEqualTo(asNumber(1));
+    }
+
+    @Test void overwrites_variables_of_another_type() {
+        var stmt = AstBuilder.parse("x = 1;");
+        var env = new Environment(Map.of("x", Bool.TRUE));
+
+        assertThat(RegisterCompiler.compile(stmt).apply(env)).hasToString(stmt.evaluate(env).toString());
+    }
+
+    @Test void reads_variables_assigned_on_some_paths() {
+        var stmt = AstBuilder.parse("if (c) { x = 1; } else { do-nothing } y = x;");
+        var program = RegisterCompiler.compile(stmt);
+
+        var env = new Environment(Map.of("c", Bool.TRUE));
+        assertThat(program.apply(env)).hasToString(stmt.evaluate(env).toString());
+        assertThatThrownBy(() -> program.apply(new Environment(Map.of("c", Bool.FALSE))))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Nothing found for name: x");
+    }
+
+    @Test void does_not_read_inputs_it_never_reaches() {
+        var stmt = AstBuilder.parse("if (c) { x = y; } else { x = 2; }");
+
+        var env = new Environment(Map.of("c", Bool.FALSE));
+        assertThat(RegisterCompiler.compile(stmt).apply(env)).hasToString(stmt.evaluate(env).toString());
+    }
+
+    @Test void round_trips_through_bytes() {
+        var stmt = AstBuilder.parse(BenchmarkPrograms.source("nested", 20));
+        var program = RegisterCompiler.compile(stmt);
+
+        var copy = RegisterCompiler.Program.deserialize(program.serialize());
+
+        assertThat(copy.disassemble()).isEqualTo(program.disassemble());
+        assertThat(copy.apply(new Environment())).hasToString(program.apply(new Environment()).toString());
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(new byte[]{1, 2, 3, 4}))
+                .hasMessage("Not a register program");
+    }
+
+    @Test void rejects_malformed_bytes() {
+        var bytes = RegisterCompiler.compile(AstBuilder.parse("x = 0; while (x < n) { x = x + 1; }")).serialize();
+        // magic, registers, variables, then per variable: name, type, input, flag
+        int type = 12 + 3;
+        int codeStart = 12 + 2 * (3 + 1 + 1 + 4) + 4;
+
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(with(bytes, type, 9)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Bad type 9 for variable x");
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(with(bytes, codeStart + 3, 99)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Bad opcode 99 at 0");
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(with(bytes, codeStart + 7, 50)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Bad operand 50 of CONST at 0");
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(Arrays.copyOf(bytes, bytes.length - 4)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Truncated register program");
+    }
+
+    @Test void rejects_jumps_between_instructions_and_code_without_halt() {
+        var program = RegisterCompiler.compile(AstBuilder.parse("while (i < 10) { i = i + 1; }"));
+        var code = program.code();
+
+        var jump = code.clone();
+        jump[4] = 6;
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(withCode(program, jump)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Bad operand 6 of JUMP at 3");
+        var noHalt = Arrays.copyOf(code, code.length - 1);
+        assertThatThrownBy(() -> RegisterCompiler.Program.deserialize(withCode(program, noHalt)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Code does not end in HALT");
+    }
+
+    private static byte[] with(byte[] bytes, int index, int value) {
+        var copy = bytes.clone();
+        copy[index] = (byte) value;
+        return copy;
+    }
+
+    private static byte[] withCode(RegisterCompiler.Program program, int[] code) {
+        return new RegisterCompiler.Program(code, program.registers(), program.names(), program.types(),
+                program.inputs(), program.flags()).serialize();
+    }
+
+    @Test @Timeout(10) void evaluate_long_while() {
+        var stmt = AstBuilder.parse("x = 0; s = 0; while (x < 100000000) { s = s + x * 3; x = x + 1; }");
+
+        var result = RegisterCompiler.compile(stmt).apply(new Environment());
+
+        int s = 0;
+        for (int x = 0; x < 100_000_000; x++)
+            s += x * 3;
+        assertThat(result.get("s")).isEqualTo(asNumber(s));
+    }
+
+    @Test void loops_take_fuel() {
+        var program = RegisterCompiler.compile(AstBuilder.parse("x = 0; while (x < 1000) { x = x + 1; }"));
+
+        assertThat(program.apply(new Environment(), Fuel.steps(1000)).get("x")).isEqualTo(asNumber(1000));
+        assertThatThrownBy(() -> program.apply(new Environment(), Fuel.steps(999)))
+                .isInstanceOf(Fuel.ExhaustedException.class);
+    }
+
+    @Test void rejects_missing_input_and_type_errors() {
+        assertThatThrownBy(() -> RegisterCompiler.compile(AstBuilder.parse("x = y + 1;")).apply(new Environment()))
+                .hasMessage("Nothing found for name: y");
+        assertThatThrownBy(() -> RegisterCompiler.compile(AstBuilder.parse("x = true + 1;")))
+                .hasMessage("Expected Number, got: true");
+    }
+}
@@ -0,0 +1,61 @@
+package bigStep;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResolverTest {
+
+    @Test void assigns_dense_slots() {
+        var stmt = new Sequence(
+                new Assignment("x", new Variable("y")),
+                new Assignment("y", new Add(new Variable("x"), new Variable("z"))));
+
+        var program = Resolver.resolve(stmt);
+
+        assertThat(program.names()).containsExactly("x", "y", "z");
+        assertThat(program.toString()).isEqualTo("$0 = $1; $1 = $0 + $2");
+    }
+
+    @Test void evaluate_if() {
+        var stmt = new If(
+                new LessThan(
+                        new Mult(asNumber(2), asNumber(0)),
+                        new Add(asNumber(2), asNumber(0))),
+                new Sequence(
+                        new Assignment("x", asNumber(1)),
+                        new Assignment("y", asNumber(2))),
+                new Sequence(
+                        new Assignment("x", asNumber(3)),
+                        new Assignment("y", asNumber(4))));
+
+        var result = Resolver.resolve(stmt).evaluate(new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(1));
+        assertThat(result.get("y")).isEqualTo(asNumber(2));
+    }
+
+    @Test void evaluate_while() {
+        var env = new Environment(Map.of("x", asNumber(0), "untouched", new Bool(true)));
+        var stmt = new While(
+                new LessThan(new Variable("x"), asNumber(4)),
+                new Assignment("x", new Add(new Variable("x"), asNumber(1))));
+
+        var result = Resolver.resolve(stmt).evaluate(env);
+
+        assertThat(result.get("x")).isEqualTo(asNumber(4));
+        assertThat(result.get("untouched")).isEqualTo(new Bool(true));
+        assertThat(env.get("x")).isEqualTo(asNumber(0));
+    }
+
+    @Test void unknown_variable() {
+        var stmt = new Assignment("x", new Variable("y"));
+
+        assertThatThrownBy(() -> Resolver.resolve(stmt).evaluate(new Environment()))
+                .hasMessage("Nothing found for name: y");
+    }
+}
@@ -0,0 +1,72 @@
+package bigStep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static bigStep.BigStep.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpecializingInterpreterTest {
+
+    @Test void agrees_with_evaluate() {
+        for (var name : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var statement = AstBuilder.parse(BenchmarkPrograms.source(name, 20));
+            var program = SpecializingInterpreter.prepare(statement);
+
+            for (int run = 0; run < 2; run++)
+                assertThat(program.evaluate(new Environment()).toString())
+                        .as(name).isEqualTo(statement.evaluate(new Environment()).toString());
+        }
+    }
+
+    @Test void nodes_specialize_on_first_execution() {
+        var program = SpecializingInterpreter.prepare(AstBuilder.parse("x = 0; b = true; while (x < 10) { x = x + 1; }"));
+        assertThat(program.toString()).isEqualTo("?x = 0; ?b = true; while ( ?(?x < 10) ) { ?x = ?(?x + 1) }");
+
+        var result = program.evaluate(new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(10));
+        assertThat(program.toString()).isEqualTo("int x = 0; bool b = true; while ( int(int x < 10) ) { int x = int(int x + 1) }");
+    }
+
+    @Test void constant_operations_fold() {
+        var program = SpecializingInterpreter.prepare(AstBuilder.parse("x = 2 * 3 + 1; b = 4 < 5 + 1; y = x * (2 + 2) + n;"));
+
+        var result = program.evaluate(new Environment(Map.of("n", asNumber(1))));
+
+        assertThat(result.get("x")).isEqualTo(asNumber(7));
+        assertThat(result.get("b")).isEqualTo(Bool.TRUE);
+        assertThat(result.get("y")).isEqualTo(asNumber(29));
+        assertThat(program.toString()).isEqualTo("int x = 7; bool b = true; int y = int(int(int x * 4) + int n)");
+    }
+
+    @Test void type_mismatch_rewrites_to_generic_nodes() {
+        var program = SpecializingInterpreter.prepare(AstBuilder.parse("y = x; z = y + 1;"));
+
+        var first = program.evaluate(new Environment(Map.of("x", asNumber(1))));
+        assertThat(first.get("z")).isEqualTo(asNumber(2));
+        assertThat(program.toString()).isEqualTo("int y = int x; int z = int(int y + 1)");
+
+        var second = SpecializingInterpreter.prepare(AstBuilder.parse("y = x;"));
+        second.evaluate(new Environment(Map.of("x", asNumber(1))));
+        var result = second.evaluate(new Environment(Map.of("x", Bool.TRUE)));
+        assertThat(result.get("y")).isEqualTo(Bool.TRUE);
+        assertThat(second.toString()).isEqualTo("y = x");
+
+        assertThatThrownBy(() -> program.evaluate(new Environment(Map.of("x", Bool.TRUE))))
+                .isInstanceOf(ClassCastException.class);
+        assertThat(program.toString()).isEqualTo("y = x; int z = (y + 1)");
+        assertThat(program.evaluate(new Environment(Map.of("x", asNumber(41)))).get("z")).isEqualTo(asNumber(42));
+    }
+
+    @Test void errors_match_evaluate() {
+        var loop = SpecializingInterpreter.prepare(new While(asNumber(1), new Assignment("x", asNumber(1))));
+        assertThatThrownBy(() -> loop.evaluate(new Environment())).hasMessage("Expected Bool, got: 1");
+
+        var unbound = SpecializingInterpreter.prepare(AstBuilder.parse("x = y;"));
+        assertThatThrownBy(() -> unbound.evaluate(new Environment())).hasMessage("Nothing found for name: y");
+    }
+}
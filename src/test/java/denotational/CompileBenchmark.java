@@ -0,0 +1,56 @@
+package denotational;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static denotational.Denotational.*;
+
+/**
+ * Runs the same factorial loop through {@code evaluate} and through a program compiled once with {@code compile()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompileBenchmark {
+
+    @Param({"10", "1000"})
+    int n;
+
+    Statement program;
+    Compiled compiled;
+    Environment env;
+
+    @Setup public void setUp() {
+        program = new Sequence(
+                new Assignment("f", asNumber(1)),
+                new While(
+                        new LessThan(new Variable("i"), new Variable("n")),
+                        new Sequence(
+                                new Assignment("i", new Add(new Variable("i"), asNumber(1))),
+                                new Assignment("f", new Mult(new Variable("f"), new Variable("i"))))));
+        compiled = program.compile();
+        env = new Environment(Map.of("i", asNumber(0), "n", asNumber(n)));
+    }
+
+    @Benchmark public Object evaluate() {
+        return program.evaluate(env);
+    }
+
+    @Benchmark public Object compiled() {
+        return compiled.evaluate(env);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
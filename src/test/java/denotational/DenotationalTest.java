@@ -1,11 +1,16 @@
 package denotational;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import runtime.Fuel;
+
+import java.time.Duration;
 import java.util.Map;
 
 import static denotational.Denotational.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class DenotationalTest {
 
@@ -141,4 +146,184 @@ class DenotationalTest {
         System.out.println(result);
         assertThat(result).isEqualTo("Map(1) { 'x' => 4 }");
     }
-}
\ No newline at end of file
+
+    @Test @Timeout(30) void evaluate_long_while() {
+        var env = new Environment(Map.of("x", asNumber(0)));
+        var stmt = new While(
+                new LessThan(new Variable("x"), asNumber(10_000_000)),
+                new Assignment("x", new Add(new Variable("x"), asNumber(1)))
+        );
+
+        assertThat(stmt.evaluate(env).get("x")).isEqualTo(asNumber(10_000_000));
+        assertThat(Interpreter.evaluate(stmt, env).get("x")).isEqualTo(asNumber(10_000_000));
+    }
+
+    @Test void interpreter_evaluates_deep_sequences() {
+        var init = new Assignment("x", asNumber(0));
+        var step = new Assignment("x", new Add(new Variable("x"), asNumber(1)));
+        Statement right = step;
+        Statement left = init;
+        for (int i = 0; i < 1_000_000; i++) {
+            right = new Sequence(step, right);
+            left = new Sequence(left, step);
+        }
+
+        assertThat(Interpreter.evaluate(new Sequence(init, right), new Environment()).get("x"))
+                .isEqualTo(asNumber(1_000_001));
+        assertThat(Interpreter.evaluate(left, new Environment()).get("x"))
+                .isEqualTo(asNumber(1_000_000));
+    }
+
+    @Test void compile_while() {
+        var env = new Environment(Map.of("x", asNumber(0), "flag", new Bool(true)));
+        var stmt = new Sequence(
+                new Assignment("f", asNumber(1)),
+                new While(
+                        new LessThan(new Variable("x"), asNumber(5)),
+                        new Sequence(
+                                new Assignment("x", new Add(new Variable("x"), asNumber(1))),
+                                new Assignment("f", new Mult(new Variable("f"), new Variable("x"))))));
+
+        var compiled = stmt.compile();
+
+        assertThat(compiled.evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        assertThat(compiled.evaluate(env).get("f")).isEqualTo(asNumber(120));
+        assertThat(compiled.evaluate(env).get("flag")).isEqualTo(new Bool(true));
+    }
+
+    @Test void compile_if_with_bools() {
+        var stmt = new Sequence(
+                new Assignment("small", new LessThan(new Variable("x"), asNumber(10))),
+                new If(new Variable("small"),
+                        new Assignment("y", asNumber(1)),
+                        new Assignment("z", asNumber(2))));
+        var compiled = stmt.compile();
+
+        for (int x : new int[]{5, 50}) {
+            var env = new Environment(Map.of("x", asNumber(x)));
+            assertThat(compiled.evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test void compile_rejects_missing_input() {
+        var stmt = new Assignment("x", new Add(new Variable("y"), asNumber(1)));
+
+        assertThatThrownBy(() -> stmt.compile().evaluate(new Environment()))
+                .hasMessage("Nothing found for name: y");
+    }
+
+    @Test void compile_copies_a_bool_input() {
+        var stmt = AstBuilder.parse("y = flag;");
+        var env = new Environment(Map.of("flag", Bool.TRUE));
+
+        assertThat(stmt.compile().evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+    }
+
+    @Test void compile_types_a_copy_by_later_uses() {
+        var stmt = AstBuilder.parse("y = x; if (x) { z = 1; } else { z = 2; }");
+        var compiled = stmt.compile();
+
+        for (var x : new Bool[]{Bool.TRUE, Bool.FALSE}) {
+            var env = new Environment(Map.of("x", x));
+            assertThat(compiled.evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        }
+    }
+
+    @Test void compile_boxes_variables_of_unknown_type() {
+        var stmt = AstBuilder.parse("y = x; z = y;");
+        var compiled = stmt.compile();
+
+        for (var x : new Expression[]{asNumber(7), Bool.FALSE}) {
+            var env = new Environment(Map.of("x", x));
+            assertThat(compiled.evaluate(env).get("z")).isEqualTo(x);
+        }
+    }
+
+    @Test void compile_overwrites_variables_of_another_type() {
+        var stmt = AstBuilder.parse("x = 1;");
+        var env = new Environment(Map.of("x", Bool.TRUE));
+
+        assertThat(stmt.compile().evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+    }
+
+    @Test void compile_reads_variables_assigned_on_some_paths() {
+        var stmt = AstBuilder.parse("if (c) { x = 1; } else { do-nothing } y = x;");
+        var compiled = stmt.compile();
+
+        var env = new Environment(Map.of("c", Bool.TRUE));
+        assertThat(compiled.evaluate(env).toString()).isEqualTo(stmt.evaluate(env).toString());
+        assertThatThrownBy(() -> compiled.evaluate(new Environment(Map.of("c", Bool.FALSE))))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Nothing found for name: x");
+    }
+
+    @Test void compiled_loops_take_fuel() {
+        var stmt = AstBuilder.parse("x = 0; while (x < 1000) { x = x + 1; }");
+
+        assertThat(stmt.compile(Fuel.steps(1000)).evaluate(new Environment()).get("x")).isEqualTo(asNumber(1000));
+        assertThatThrownBy(() -> stmt.compile(Fuel.steps(999)).evaluate(new Environment()))
+                .isInstanceOf(Fuel.ExhaustedException.class);
+    }
+
+    @Test void compile_rejects_mixed_types() {
+        var stmt = new Sequence(
+                new Assignment("x", new Bool(true)),
+                new Assignment("y", new Add(new Variable("x"), asNumber(1))));
+
+        assertThatThrownBy(stmt::compile).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test void parse_and_run() {
+        var stmt = AstBuilder.parse("x = 0; while (x < 4) { x = x + 1; } if (true) { y = x * 2; } else { do-nothing }");
+
+        var code = stmt.toJS();
+
+        assertThat(JSRunner.run(code, Map.of())).isEqualTo("Map(2) { 'x' => 4, 'y' => 8 }");
+        assertThat(stmt.evaluate(new Environment()).get("y")).isEqualTo(asNumber(8));
+    }
+
+    @Test void arithmetic_returns_canonical_values() {
+        var env = new Environment(Map.of("x", asNumber(20)));
+
+        assertThat(new Add(new Variable("x"), asNumber(22)).evaluate(env)).isSameAs(asNumber(42));
+        assertThat(new Mult(new Variable("x"), new Variable("x")).evalInt(env)).isEqualTo(400);
+        assertThat(new LessThan(asNumber(1), new Variable("x")).evaluate(env)).isSameAs(Bool.TRUE);
+        assertThat(new Add(asNumber(1_000_000), asNumber(1)).evaluate(env)).isEqualTo(asNumber(1_000_001));
+    }
+
+    @Test void conditions_must_be_bool() {
+        var stmt = new While(asNumber(1), new Assignment("x", asNumber(1)));
+
+        assertThatThrownBy(() -> stmt.evaluate(new Environment())).hasMessage("Expected Bool, got: 1");
+        assertThatThrownBy(() -> Interpreter.evaluate(stmt, new Environment())).hasMessage("Expected Bool, got: 1");
+    }
+
+    @Test void interpreter_pauses_when_out_of_fuel_and_resumes() {
+        var stmt = new Sequence(
+                new Assignment("x", asNumber(0)),
+                new While(new LessThan(new Variable("x"), asNumber(1000)),
+                        new Assignment("x", new Add(new Variable("x"), asNumber(1)))));
+
+        var outcome = Interpreter.evaluate(stmt, new Environment(), Fuel.steps(100));
+        int slices = 1;
+        while (outcome instanceof Interpreter.OutOfFuel paused) {
+            assertThat(paused.interpreter().environment().get("x")).isEqualTo(asNumber(100 * slices));
+            outcome = paused.resume(Fuel.steps(100));
+            slices++;
+        }
+
+        assertThat(slices).isEqualTo(11);
+        assertThat(((Interpreter.Finished) outcome).environment().get("x")).isEqualTo(asNumber(1000));
+    }
+
+    @Test @Timeout(10) void deadline_preempts_an_endless_loop() {
+        var stmt = new While(Bool.TRUE, new Assignment("x", new Add(new Variable("x"), asNumber(1))));
+        var env = new Environment(Map.of("x", asNumber(0)));
+
+        var outcome = Interpreter.evaluate(stmt, env, Fuel.until(Duration.ofMillis(20)));
+
+        assertThat(outcome).isInstanceOf(Interpreter.OutOfFuel.class);
+        var paused = (Interpreter.OutOfFuel) outcome;
+        assertThat(paused.resume(Fuel.steps(10))).isInstanceOf(Interpreter.OutOfFuel.class);
+    }
+}
@@ -0,0 +1,51 @@
+package denotational;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImperativeJsTest {
+
+    @Test void emits_flat_code() {
+        var stmt = AstBuilder.parse("i = 0; while (i < n) { i = i + 1; }");
+
+        assertThat(stmt.toImperativeJS()).isEqualTo("""
+                (e) => {
+                  let v_i = e.get('i'), w_i = false;
+                  let v_n = e.get('n'), w_n = false;
+                  const fresh = [];
+                  if (!w_i) { w_i = true; if (!e.has('i')) fresh.push('i'); }
+                  v_i = 0;
+                  while ((v_i < v_n)) {
+                    v_i = (v_i + 1);
+                  }
+                  const r = new Map(e);
+                  for (const k of fresh) r.set(k, undefined);
+                  if (w_i) r.set('i', v_i);
+                  if (w_n) r.set('n', v_n);
+                  return r;
+                }""");
+    }
+
+    @Test void same_output_as_closures() {
+        var cases = Map.of(
+                "if (c < 1) { a = 1; b = true; } else { b = false; a = c * 2; } c = c + a;", Map.of("c", "5"),
+                "if (c < 1) { a = 1; b = true; } else { b = false; a = c * 2; } z = 0;", Map.of("c", "0", "z", "9"),
+                "x = x + 1; while (x < 10) { if (x < 5) { y = x; } else { do-nothing } x = x + 1; }", Map.of("x", "0"),
+                BenchmarkPrograms.source("factorial", 10), Map.<String, String>of(),
+                BenchmarkPrograms.source("nested", 10), Map.of("s", "7"),
+                BenchmarkPrograms.source("wide", 30), Map.<String, String>of());
+
+        cases.forEach((source, env) -> {
+            var stmt = AstBuilder.parse(source);
+
+            var expected = JSRunner.run(stmt.toJS(), env);
+
+            assertThat(expected).startsWith("Map(");
+            assertThat(JSRunner.run(stmt.toImperativeJS(), env)).as(source).isEqualTo(expected);
+        });
+    }
+}
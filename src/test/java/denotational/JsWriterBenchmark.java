@@ -0,0 +1,49 @@
+package denotational;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static denotational.Denotational.*;
+
+/**
+ * JavaScript generation through nested {@code toJS()} calls and through {@link JsWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsWriterBenchmark {
+
+    @Param({"chain", "deep"})
+    String program;
+
+    @Param({"100", "1000"})
+    int size;
+
+    Statement statement;
+
+    @Setup public void setUp() {
+        statement = AstBuilder.parse(BenchmarkPrograms.source(program, size));
+    }
+
+    @Benchmark public Object toJS() {
+        return statement.toJS();
+    }
+
+    @Benchmark public Object writer() {
+        return JsWriter.toJS(statement);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsWriterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,49 @@
+package denotational;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import static denotational.Denotational.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsWriterTest {
+
+    @Test void writes_same_code_as_to_js() throws Exception {
+        var programs = new String[]{
+                "x = 1; y = true; z = x < 2 * (x + 1); if (z) { w = x; } else { do-nothing } while (false) { x = 0; }",
+                BenchmarkPrograms.source("factorial", 5),
+                BenchmarkPrograms.source("nested", 5),
+                BenchmarkPrograms.source("deep", 20),
+        };
+        for (var source : programs) {
+            var stmt = AstBuilder.parse(source);
+            var out = new StringWriter();
+
+            JsWriter.write(stmt, out);
+
+            assertThat(out.toString()).isEqualTo(stmt.toJS());
+        }
+    }
+
+    @Test void generated_code_runs() {
+        var stmt = AstBuilder.parse(BenchmarkPrograms.source("factorial", 5));
+
+        assertThat(JSRunner.run(JsWriter.toJS(stmt), Map.of())).isEqualTo("Map(2) { 'i' => 5, 'f' => 120 }");
+    }
+
+    @Test @Timeout(10) void writes_long_sequences() {
+        var step = new Assignment("x", new Add(new Variable("x"), asNumber(1)));
+        Statement stmt = step;
+        for (int i = 0; i < 200_000; i++)
+            stmt = new Sequence(step, stmt);
+
+        var js = JsWriter.toJS(stmt);
+
+        int perStep = new Sequence(step, step).toJS().length() - step.toJS().length();
+        assertThat(js).startsWith("(e) => { return ((e) => { return (").hasSize(200_000 * perStep + step.toJS().length());
+    }
+}
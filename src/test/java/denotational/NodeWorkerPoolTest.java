@@ -0,0 +1,114 @@
+package denotational;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static denotational.Denotational.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeWorkerPoolTest {
+
+    private static final NodeWorkerPool POOL = new NodeWorkerPool(2);
+
+    @AfterAll static void close() {
+        POOL.close();
+    }
+
+    @Test void submit() {
+        var code = new Add(asNumber(1), asNumber(3)).toJS();
+
+        assertThat(POOL.submit(String.format("(%s)(new Map())", code)).join()).isEqualTo("4");
+    }
+
+    @Test void submit_all() {
+        var codes = new ArrayList<String>();
+        for (int i = 0; i < 2_000; i++) {
+            var stmt = new Assignment("x", new Mult(asNumber(i), asNumber(2)));
+            codes.add(String.format("(%s)(new Map())", stmt.toJS()));
+        }
+
+        var results = POOL.submitAll(codes).stream().map(CompletableFuture::join).toList();
+
+        for (int i = 0; i < results.size(); i++)
+            assertThat(results.get(i)).isEqualTo("Map(1) { 'x' => " + 2 * i + " }");
+    }
+
+    @Test void large_output() {
+        var result = POOL.submit("'x'.repeat(5_000_000)").join();
+
+        assertThat(result).hasSize(5_000_000);
+    }
+
+    @Test void errors() {
+        assertThatThrownBy(() -> POOL.submit("undefinedFunction()").join())
+                .hasMessageContaining("undefinedFunction is not defined");
+        assertThat(POOL.submit("1 + 1").join()).isEqualTo("2");
+    }
+
+    @Test void globals_do_not_leak_between_programs() {
+        try (var pool = new NodeWorkerPool(1)) {
+            assertThat(pool.submit("globalThis.leak = 1; leak").join()).isEqualTo("1");
+            assertThat(pool.submit("typeof leak").join()).isEqualTo("undefined");
+        }
+    }
+
+    @Test @Timeout(10) void long_running_programs_time_out() {
+        try (var pool = new NodeWorkerPool(1, Duration.ofMillis(200))) {
+            assertThatThrownBy(() -> pool.submit("while (true) {}").join())
+                    .hasMessageContaining("Script execution timed out");
+            assertThat(pool.submit("1 + 1").join()).isEqualTo("2");
+        }
+    }
+
+    @Test @Timeout(10) void stalled_workers_are_restarted() {
+        try (var pool = new NodeWorkerPool(1, Duration.ofMillis(200))) {
+            // the callback runs after the script returns, outside the vm time limit, and blocks the worker
+            assertThat(pool.submit("Promise.resolve().then(() => { while (true) {} }); 0").join()).isEqualTo("0");
+
+            assertThatThrownBy(() -> pool.submit("1 + 1").join()).hasCauseInstanceOf(TimeoutException.class);
+            assertThat(pool.submit("2 + 2").join()).isEqualTo("4");
+        }
+    }
+
+    @Test @Timeout(10) void watchdog_survives_failed_restarts() throws InterruptedException {
+        var broken = new AtomicBoolean();
+        NodeWorkerPool.Launcher launcher = timeout -> {
+            if (broken.get())
+                throw new IOException("cannot start node");
+            return NodeWorkerPool.NODE.start(timeout);
+        };
+        try (var pool = new NodeWorkerPool(1, Duration.ofMillis(200), launcher)) {
+            broken.set(true);
+            assertThat(pool.submit("Promise.resolve().then(() => { while (true) {} }); 0").join()).isEqualTo("0");
+            assertThatThrownBy(() -> pool.submit("1 + 1").join()).hasCauseInstanceOf(TimeoutException.class);
+            assertThatThrownBy(() -> pool.submit("1 + 1").join()).hasCauseInstanceOf(TimeoutException.class);
+
+            broken.set(false);
+            while (true) {
+                try {
+                    assertThat(pool.submit("2 + 2").join()).isEqualTo("4");
+                    break;
+                } catch (CompletionException e) {
+                    Thread.sleep(50);
+                }
+            }
+        }
+    }
+
+    @Test @Timeout(10) void submit_after_close_completes() {
+        var pool = new NodeWorkerPool(1);
+        pool.close();
+
+        assertThatThrownBy(() -> pool.submit("1").join()).isNotNull();
+    }
+}
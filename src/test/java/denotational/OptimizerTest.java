@@ -0,0 +1,85 @@
+package denotational;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import static denotational.Denotational.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OptimizerTest {
+
+    private static final String LITERALS = """
+            y = 5;
+            x = 2 * 3 + 4 * y * 1 + 0;
+            if (1 < 2) { z = x * 0; } else { z = 1; }
+            while (false) { x = 0; }
+            do-nothing;
+            i = 0;
+            while (i < 2 + 3) { i = i + 1 * 1; do-nothing; }
+            """;
+
+    @Test void folds_constants_and_identities() {
+        var stmt = AstBuilder.parse("x = 2 * 3 + 4 * y * 1 + 0; z = x * 0 + 1 * (0 + x);");
+
+        assertThat(Optimizer.optimize(stmt)).hasToString("x = 6 + 4 * y; z = x");
+    }
+
+    @Test void folds_to_shared_literals() {
+        var stmt = (Sequence) Optimizer.optimize(AstBuilder.parse("x = 2 * 3 + 1; b = 1 < 2;"));
+
+        assertThat(((Assignment) stmt.first()).expression()).isSameAs(asNumber(7));
+        assertThat(((Assignment) stmt.second()).expression()).isSameAs(Bool.TRUE);
+    }
+
+    @Test void prunes_decided_branches() {
+        var stmt = AstBuilder.parse("""
+                if (1 < 2) { x = 1; } else { x = 2; }
+                while (false) { x = 3; }
+                do-nothing;
+                if (false) { y = 1; } else { do-nothing }
+                """);
+
+        assertThat(Optimizer.optimize(stmt)).hasToString("x = 1");
+        assertThat(Optimizer.optimize(new Sequence(new DoNothing(), new DoNothing()))).isEqualTo(new DoNothing());
+    }
+
+    @Test void keeps_dynamic_code() {
+        var stmt = AstBuilder.parse("while (x < 3) { if (x < y) { x = x + 1; } else { x = x * 2; } }");
+
+        assertThat(Optimizer.optimize(stmt)).isEqualTo(stmt);
+    }
+
+    @Test void same_result_as_unoptimized() {
+        var stmt = AstBuilder.parse(LITERALS);
+
+        var expected = stmt.evaluate(new Environment());
+
+        assertThat(Optimizer.optimize(stmt).evaluate(new Environment())).hasToString(expected.toString());
+        assertThat(expected.get("z")).isEqualTo(asNumber(0));
+    }
+
+    @Test void same_result_for_every_evaluator() {
+        for (var program : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var stmt = AstBuilder.parse(BenchmarkPrograms.source(program, 30));
+            var optimized = Optimizer.optimize(stmt);
+
+            var expected = stmt.evaluate(new Environment()).toString();
+
+            assertThat(optimized.evaluate(new Environment())).hasToString(expected);
+            assertThat(Interpreter.evaluate(optimized, new Environment())).hasToString(expected);
+            assertThat(optimized.compile().evaluate(new Environment())).hasToString(expected);
+        }
+    }
+
+    @Test void long_sequences() {
+        var increment = new Assignment("x", new Add(new Variable("x"), asNumber(1)));
+        Statement stmt = increment;
+        for (int i = 1; i < 100_000; i++)
+            stmt = new Sequence(new DoNothing(), new Sequence(increment, stmt));
+        stmt = new Sequence(new Assignment("x", asNumber(0)), stmt);
+
+        var result = Interpreter.evaluate(Optimizer.optimize(stmt), new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(100_000));
+    }
+}
@@ -0,0 +1,44 @@
+package denotational;
+
+import org.junit.jupiter.api.Test;
+import runtime.Profile;
+
+import static denotational.Denotational.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfilerTest {
+
+    private static final String SOURCE = "x = 0; b = true; while (x < 10) { x = x + 1; b = x < 5; }";
+
+    @Test void profiles_evaluation() {
+        var profile = new Profile();
+
+        var result = Profiler.instrument(AstBuilder.parse(SOURCE), profile).evaluate(new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(10));
+        var loop = profile.root().child("while ( x < 10 ) { x = x + 1, b = x < 5 }");
+        assertThat(loop.child("x < 10").visits()).isEqualTo(11);
+        assertThat(loop.child("x = x + 1").visits()).isEqualTo(10);
+        assertThat(loop.child("b = x < 5").child("x < 5").child("x").visits()).isEqualTo(10);
+    }
+
+    @Test void profiles_compiled_code() {
+        var profile = new Profile();
+        var compiled = Profiler.instrument(AstBuilder.parse(SOURCE), profile).compile();
+        assertThat(profile.root().children()).isEmpty();
+
+        var result = compiled.evaluate(new Environment());
+
+        assertThat(result.get("x")).isEqualTo(asNumber(10));
+        assertThat(result.get("b")).isEqualTo(Bool.FALSE);
+        var loop = profile.root().child("while ( x < 10 ) { x = x + 1, b = x < 5 }");
+        assertThat(loop.child("x < 10").visits()).isEqualTo(11);
+        assertThat(loop.child("b = x < 5").visits()).isEqualTo(10);
+    }
+
+    @Test void javascript_is_unchanged() {
+        var program = AstBuilder.parse(SOURCE);
+
+        assertThat(Profiler.instrument(program, new Profile()).toJS()).isEqualTo(program.toJS());
+    }
+}
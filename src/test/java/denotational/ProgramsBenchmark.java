@@ -0,0 +1,51 @@
+package denotational;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+import runtime.Fuel;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static denotational.Denotational.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgramsBenchmark {
+
+    @Param({"factorial", "nested", "chain", "wide", "deep"})
+    String program;
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    Statement statement;
+    Compiled compiled;
+    Environment env;
+
+    @Setup public void setUp() {
+        statement = AstBuilder.parse(BenchmarkPrograms.source(program, size));
+        compiled = statement.compile();
+        env = new Environment();
+    }
+
+    @Benchmark public Object evaluate() {
+        return statement.evaluate(env);
+    }
+
+    @Benchmark public Object interpreter() {
+        return Interpreter.evaluate(statement, env);
+    }
+
+    @Benchmark public Object fueled() {
+        return Interpreter.evaluate(statement, env, Fuel.until(Duration.ofHours(1)));
+    }
+
+    @Benchmark public Object compiled() {
+        return compiled.evaluate(env);
+    }
+}
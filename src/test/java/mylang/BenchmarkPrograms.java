@@ -0,0 +1,55 @@
+package mylang;
+
+/**
+ * MyLang sources shared by the {@code ProgramsBenchmark} of each semantics, so every evaluator runs the same programs.
+ */
+public final class BenchmarkPrograms {
+
+    private BenchmarkPrograms() {}
+
+    public static String source(String program, int size) {
+        return switch (program) {
+            // size iterations of a multiply loop
+            case "factorial" -> String.format("i = 0; f = 1; while (i < %d) { i = i + 1; f = f * i; }", size);
+            // size * 10 iterations of an inner loop
+            case "nested" -> String.format("""
+                    i = 0; s = 0;
+                    while (i < %d) {
+                      j = 0;
+                      while (j < 10) { s = s + i * j; j = j + 1; }
+                      i = i + 1;
+                    }""", size);
+            // size straight-line assignments, each reading the previous one
+            case "chain" -> {
+                var sb = new StringBuilder("x = 1;");
+                for (int i = 0; i < size; i++)
+                    sb.append(" x = x + ").append(i).append(';');
+                yield sb.toString();
+            }
+            // size live variables, then a loop that updates one of them
+            case "wide" -> {
+                var sb = new StringBuilder();
+                for (int i = 0; i < size; i++)
+                    sb.append("v").append(letters(i)).append(" = ").append(i).append("; ");
+                yield sb.append("i = 0; while (i < 100) { va = va + i; i = i + 1; }").toString();
+            }
+            // one expression nested size levels deep, alternating + and *
+            case "deep" -> {
+                var sb = new StringBuilder("y = 2; x = ");
+                for (int i = 0; i < size; i++)
+                    sb.append(i % 2 == 0 ? "y + (" : "y * (");
+                yield sb.append('y').append(")".repeat(size)).append(';').toString();
+            }
+            default -> throw new IllegalArgumentException("Unknown program: " + program);
+        };
+    }
+
+    private static String letters(int i) {
+        var sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutionServiceTest {
+
+    @Test void runs_every_task() {
+        for (var service : new ExecutionService[]{ExecutionService.onPlatformThreads(4, 8), ExecutionService.onVirtualThreads(16)}) {
+            try (service) {
+                var futures = new ArrayList<CompletableFuture<Integer>>();
+                for (int i = 0; i < 1_000; i++) {
+                    int n = i;
+                    futures.add(service.submit(() -> n * n));
+                }
+
+                for (int i = 0; i < 1_000; i++)
+                    assertThat(futures.get(i).join()).isEqualTo(i * i);
+            }
+        }
+    }
+
+    @Test @Timeout(10) void submit_blocks_when_full() throws Exception {
+        try (var service = ExecutionService.onPlatformThreads(1, 1)) {
+            var release = new CountDownLatch(1);
+            service.submit(() -> await(release));
+            service.submit(() -> await(release));
+            assertThat(service.pending()).isEqualTo(2);
+
+            var submitted = new CountDownLatch(1);
+            var producer = Thread.ofPlatform().start(() -> {
+                service.submit(() -> 3);
+                submitted.countDown();
+            });
+
+            assertThat(submitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            release.countDown();
+            assertThat(submitted.await(5, TimeUnit.SECONDS)).isTrue();
+            producer.join();
+        }
+    }
+
+    @Test void failures_complete_the_future() {
+        try (var service = ExecutionService.onVirtualThreads(1)) {
+            var future = service.submit(() -> {
+                throw new IllegalStateException("Expected Bool, got: 1");
+            });
+
+            assertThatThrownBy(future::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasRootCauseMessage("Expected Bool, got: 1");
+            assertThat(service.submit(() -> 1).join()).isEqualTo(1);
+        }
+    }
+
+    private static int await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return 0;
+    }
+}
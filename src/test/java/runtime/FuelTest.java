@@ -0,0 +1,60 @@
+package runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FuelTest {
+
+    @Test void steps_run_out() {
+        var fuel = Fuel.steps(3);
+
+        assertThat(fuel.consume()).isTrue();
+        assertThat(fuel.consume()).isTrue();
+        assertThat(fuel.consume()).isTrue();
+        assertThat(fuel.consume()).isFalse();
+        assertThat(fuel.exhausted()).isTrue();
+        assertThat(fuel.consume()).isFalse();
+    }
+
+    @Test void take_throws_when_steps_run_out() {
+        var fuel = Fuel.steps(1);
+
+        fuel.take();
+        assertThatThrownBy(fuel::take).isInstanceOf(Fuel.ExhaustedException.class);
+    }
+
+    @Test void unlimited_does_not_run_out() {
+        var fuel = Fuel.unlimited();
+
+        for (int i = 0; i < 1_000_000; i++)
+            assertThat(fuel.consume()).isTrue();
+        assertThat(fuel.exhausted()).isFalse();
+    }
+
+    @Test @Timeout(10) void deadline_stops_within_a_clock_interval() throws InterruptedException {
+        var fuel = Fuel.until(Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        int steps = 0;
+        while (fuel.consume())
+            steps++;
+
+        assertThat(steps).isLessThanOrEqualTo(Fuel.CLOCK_INTERVAL);
+        assertThat(fuel.exhausted()).isTrue();
+    }
+
+    @Test void steps_and_deadline_whichever_comes_first() {
+        var fuel = Fuel.of(10, Duration.ofHours(1));
+
+        int steps = 0;
+        while (fuel.consume())
+            steps++;
+
+        assertThat(steps).isEqualTo(10);
+    }
+}
@@ -0,0 +1,124 @@
+package runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentMapTest {
+
+    @Test void put_and_get() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+
+        map = map.put("x", 1).put("y", 2).put("x", 3);
+
+        assertThat(map.get("x")).isEqualTo(3);
+        assertThat(map.get("y")).isEqualTo(2);
+        assertThat(map.get("z")).isNull();
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test void old_versions_stay_unchanged() {
+        PersistentMap<String, Integer> v1 = PersistentMap.<String, Integer>empty().put("x", 1);
+
+        var v2 = v1.put("x", 2).put("y", 3);
+
+        assertThat(v1.get("x")).isEqualTo(1);
+        assertThat(v1.get("y")).isNull();
+        assertThat(v1.size()).isEqualTo(1);
+        assertThat(v2.get("x")).isEqualTo(2);
+        assertThat(v2.size()).isEqualTo(2);
+    }
+
+    @Test void put_same_value_returns_same_map() {
+        var value = Integer.valueOf(1000);
+        var map = PersistentMap.<String, Integer>empty().put("x", value);
+
+        assertThat(map.put("x", value)).isSameAs(map);
+    }
+
+    @Test void hash_collisions() {
+        // "Aa" and "BB" have the same String.hashCode
+        var map = PersistentMap.<String, Integer>empty().put("Aa", 1).put("BB", 2).put("C", 3);
+
+        assertThat(map.get("Aa")).isEqualTo(1);
+        assertThat(map.get("BB")).isEqualTo(2);
+        assertThat(map.get("C")).isEqualTo(3);
+        assertThat(map.put("BB", 4).get("BB")).isEqualTo(4);
+        assertThat(map.get("BB")).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test void behaves_like_hash_map() {
+        var random = new Random(42);
+        var expected = new HashMap<Integer, Integer>();
+        PersistentMap<Integer, Integer> actual = PersistentMap.empty();
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(20_000) - 10_000;
+            expected.put(key, i);
+            actual = actual.put(key, i);
+        }
+
+        assertThat(actual.size()).isEqualTo(expected.size());
+        var seen = new HashMap<Integer, Integer>();
+        actual.forEach(seen::put);
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test void to_string_looks_like_map() {
+        var map = PersistentMap.copyOf(Map.of("x", 1, "y", 2));
+
+        assertThat(map.toString()).isEqualTo("{x=1, y=2}");
+    }
+
+    @Test void diff_reports_changed_added_and_missing_keys() {
+        var older = PersistentMap.copyOf(Map.of("x", 1, "y", 2, "Aa", 3));
+        var newer = older.put("x", 10).put("z", 4).put("BB", 5).put("y", 2);
+
+        var changes = new HashMap<String, Integer>();
+        newer.diff(older, changes::put);
+        assertThat(changes).isEqualTo(Map.of("x", 10, "z", 4, "BB", 5));
+
+        changes.clear();
+        older.diff(newer, changes::put);
+        assertThat(changes).containsEntry("x", 1).containsEntry("z", null).containsEntry("BB", null).hasSize(3);
+    }
+
+    @Test void diff_matches_a_full_comparison() {
+        var random = new Random(7);
+        PersistentMap<Integer, Integer> older = PersistentMap.empty();
+        for (int i = 0; i < 10_000; i++)
+            older = older.put(random.nextInt(50_000), i);
+        var newer = older;
+        for (int i = 0; i < 100; i++)
+            newer = newer.put(random.nextInt(50_000), -i);
+
+        var expected = new HashMap<Integer, Integer>();
+        var base = older;
+        newer.forEach((k, v) -> {
+            if (!v.equals(base.get(k)))
+                expected.put(k, v);
+        });
+        var actual = new HashMap<Integer, Integer>();
+        newer.diff(older, actual::put);
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.size()).isBetween(1, 100);
+    }
+
+    @Test void diff_of_unrelated_maps() {
+        var a = PersistentMap.copyOf(Map.of(1, "a", 33, "b", 65, "c"));
+        var b = PersistentMap.copyOf(Map.of(1, "a", 2, "d"));
+
+        var changes = new HashMap<Integer, String>();
+        a.diff(b, changes::put);
+
+        var expected = new HashMap<Integer, String>(Map.of(33, "b", 65, "c"));
+        expected.put(2, null);
+        assertThat(changes).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,101 @@
+package runtime;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProfileTest {
+
+    @Test void counts_visits_and_steps_by_path() {
+        var profile = new Profile();
+        for (int i = 0; i < 3; i++) {
+            profile.enter("while");
+            profile.enter("x = x + 1");
+            profile.step();
+            profile.step();
+            profile.exit();
+            profile.exit();
+        }
+
+        var loop = profile.root().child("while");
+        assertThat(loop.visits()).isEqualTo(3);
+        assertThat(loop.steps()).isZero();
+        assertThat(loop.child("x = x + 1").visits()).isEqualTo(3);
+        assertThat(loop.child("x = x + 1").steps()).isEqualTo(6);
+        assertThat(loop.nanos()).isGreaterThanOrEqualTo(loop.child("x = x + 1").nanos());
+    }
+
+    @Test void allocation_leaves_out_the_profiles_own() {
+        var labels = new String[200];
+        for (int i = 0; i < labels.length; i++)
+            labels[i] = "child " + i;
+        var profile = new Profile();
+
+        profile.enter("outer");
+        for (var label : labels) {
+            profile.enter(label);
+            profile.exit();
+        }
+        profile.exit();
+
+        // 200 new entries would be several kilobytes
+        assertThat(profile.root().child("outer").allocated()).isLessThan(1024);
+    }
+
+    @Test void collapsed_stacks_have_one_line_per_path() throws InterruptedException {
+        var profile = new Profile();
+        profile.enter("a");
+        profile.enter("b");
+        Thread.sleep(2);
+        profile.exit();
+        profile.enter("c");
+        Thread.sleep(2);
+        profile.exit();
+        profile.exit();
+
+        var lines = profile.collapsed().lines().toList();
+
+        assertThat(lines).anyMatch(line -> line.matches("a;b \\d+"));
+        assertThat(lines).anyMatch(line -> line.matches("a;c \\d+"));
+        assertThat(lines).allMatch(line -> line.matches("a(;[bc])? \\d+"));
+    }
+
+    @Test void labels_fit_on_one_collapsed_frame() {
+        assertThat(Profile.label("x = 1; y = 2")).isEqualTo("x = 1, y = 2");
+        assertThat(Profile.label("x".repeat(200))).hasSize(80).endsWith("...");
+    }
+
+    @Test void exit_needs_an_enter() {
+        assertThatThrownBy(() -> new Profile().exit()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test void emits_flight_recorder_events_when_enabled() throws Exception {
+        var file = Files.createTempFile("profile", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable(NodeEvent.class);
+            recording.start();
+            var profile = new Profile();
+            profile.enter("outer");
+            profile.enter("inner");
+            profile.exit();
+            profile.exit();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("mylang.NodeExecution"))
+                .map(RecordedEvent::toString)
+                .toList();
+        Files.delete(file);
+
+        assertThat(events).hasSize(2);
+        assertThat(events).anyMatch(e -> e.contains("\"inner\"") && e.contains("depth = 2"));
+    }
+}
@@ -0,0 +1,73 @@
+package smallstep;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static smallstep.SmallStep.*;
+
+/**
+ * Reduction steps per second of {@link AbstractMachine} with and without per-step tracing.
+ * {@code traced} formats every configuration the way the old printf did, but into a
+ * {@link Blackhole} instead of stdout, so it is a lower bound for the old cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AbstractMachineBenchmark {
+
+    @Param({"10", "100"})
+    int n;
+
+    Statement program;
+    Environment env;
+    long stepsPerRun;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Steps {
+        public long steps;
+    }
+
+    @Setup public void setUp() {
+        program = new While(
+                new LessThan(new Variable("x"), asNumber(n)),
+                new Assignment("x", new Add(new Variable("x"), asNumber(1))));
+        env = new Environment(Map.of("x", asNumber(0)));
+        var counter = new long[1];
+        AbstractMachine.evaluate(program, env, new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                counter[0]++;
+            }
+        });
+        stepsPerRun = counter[0];
+    }
+
+    @Benchmark public Object silent(Steps steps) {
+        steps.steps += stepsPerRun;
+        return AbstractMachine.evaluate(program, env);
+    }
+
+    @Benchmark public Object traced(Steps steps, Blackhole blackhole) {
+        steps.steps += stepsPerRun;
+        return AbstractMachine.evaluate(program, env, new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                blackhole.consume(String.format("%s, %s\n", configuration.statement(), configuration.environment()));
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AbstractMachineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
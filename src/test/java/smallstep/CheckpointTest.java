@@ -0,0 +1,107 @@
+package smallstep;
+
+import org.junit.jupiter.api.Test;
+import runtime.Fuel;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static smallstep.SmallStep.*;
+
+class CheckpointTest {
+
+    private static final Statement PROGRAM = new Sequence(
+            new Assignment("s", asNumber(-5)),
+            new While(
+                    new LessThan(new Variable("i"), asNumber(200)),
+                    new Sequence(
+                            new Assignment("s", new Add(new Variable("s"), new Mult(new Variable("i"), new Variable("i")))),
+                            new Assignment("i", new Add(new Variable("i"), asNumber(1))))));
+
+    private static Environment input() {
+        var env = new Environment(Map.of("i", asNumber(0)));
+        for (char c = 'a'; c <= 'z'; c++)
+            env.set("unused" + c, asNumber(c));
+        return env;
+    }
+
+    @Test void save_and_restore() {
+        var configuration = AbstractMachine.evaluate(PROGRAM, input(), Fuel.steps(37));
+
+        var restored = Checkpoint.restore(Checkpoint.save(configuration));
+
+        assertThat(restored.statement().toString()).isEqualTo(configuration.statement().toString());
+        assertThat(restored.environment().toString()).isEqualTo(configuration.environment().toString());
+    }
+
+    @Test void restored_configuration_continues_to_the_same_result() {
+        var expected = AbstractMachine.evaluate(PROGRAM, input()).toString();
+
+        var bytes = new ByteArrayOutputStream();
+        Configuration configuration = AbstractMachine.evaluate(PROGRAM, input(), Fuel.steps(100));
+        try (var writer = new Checkpoint.Writer(bytes)) {
+            while (!configuration.finished()) {
+                writer.write(configuration);
+                // continue from what was written, as another worker would
+                configuration = AbstractMachine.resume(Checkpoint.restore(bytes.toByteArray()), Fuel.steps(100));
+            }
+        }
+
+        assertThat(configuration.environment().toString()).isEqualTo(expected);
+    }
+
+    @Test void deltas_only_carry_changed_variables() {
+        var machine = new ContextMachine(PROGRAM, input());
+        machine.run(Fuel.steps(10));
+        var bytes = new ByteArrayOutputStream();
+        try (var writer = new Checkpoint.Writer(bytes)) {
+            writer.write(machine);
+            int full = bytes.size();
+            machine.run(Fuel.steps(10));
+            writer.write(machine);
+            int delta = bytes.size() - full;
+
+            assertThat(delta).isLessThan(full / 2);
+        }
+
+        var restored = Checkpoint.restore(bytes.toByteArray());
+        assertThat(restored.environment().toString()).isEqualTo(machine.environment().toString());
+        assertThat(restored.statement().toString()).isEqualTo(machine.statement().toString());
+    }
+
+    @Test void truncated_stream_restores_the_last_complete_record() {
+        var bytes = new ByteArrayOutputStream();
+        Configuration first;
+        try (var writer = new Checkpoint.Writer(bytes)) {
+            first = AbstractMachine.evaluate(PROGRAM, input(), Fuel.steps(50));
+            writer.write(first);
+            writer.write(AbstractMachine.resume(first, Fuel.steps(50)));
+        }
+        var cut = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+
+        var restored = Checkpoint.restore(cut);
+
+        assertThat(restored.environment().toString()).isEqualTo(first.environment().toString());
+    }
+
+    @Test void long_sequences_and_negative_numbers() {
+        Statement program = new DoNothing();
+        for (int i = 0; i < 100_000; i++)
+            program = new Sequence(new Assignment("x", new Add(new Variable("x"), asNumber(-i))), program);
+        program = new Sequence(new Assignment("x", asNumber(Integer.MIN_VALUE)), program);
+
+        var restored = Checkpoint.restore(Checkpoint.save(new StatementResult(program, new Environment())));
+
+        assertThat(AbstractMachine.evaluate(restored.statement(), restored.environment()).get("x"))
+                .isEqualTo(AbstractMachine.evaluate(program, new Environment()).get("x"));
+    }
+
+    @Test void rejects_other_data() {
+        assertThatThrownBy(() -> Checkpoint.restore(new byte[]{1, 2, 3, 4, 5}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a checkpoint");
+    }
+}
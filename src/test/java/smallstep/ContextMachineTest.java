@@ -0,0 +1,120 @@
+package smallstep;
+
+import org.junit.jupiter.api.Test;
+import runtime.Fuel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static smallstep.SmallStep.*;
+
+class ContextMachineTest {
+
+    @Test void assignment() {
+        var stmt = new Assignment("x", new Add(asNumber(1), asNumber(3)));
+
+        assertSameSteps(stmt, new Environment());
+    }
+
+    @Test void nested_expressions() {
+        var env = new Environment(Map.of("x", asNumber(2), "y", asNumber(5)));
+        var stmt = new Assignment("z", new Add(
+                new Mult(new Variable("x"), new Add(new Variable("y"), asNumber(1))),
+                new Mult(new Add(asNumber(3), new Variable("x")), new Variable("y"))));
+
+        assertSameSteps(stmt, env);
+    }
+
+    @Test void reduce_if() {
+        var stmt = new If(
+                new LessThan(
+                        new Mult(asNumber(2), asNumber(0)),
+                        new Add(asNumber(2), asNumber(0))),
+                new Sequence(
+                        new Assignment("x", asNumber(1)),
+                        new Assignment("y", asNumber(2))),
+                new Sequence(
+                        new Assignment("x", asNumber(3)),
+                        new Assignment("y", asNumber(4))));
+
+        assertSameSteps(stmt, new Environment());
+    }
+
+    @Test void nested_sequences() {
+        var stmt = new Sequence(
+                new Sequence(
+                        new Assignment("x", asNumber(1)),
+                        new Sequence(new DoNothing(), new Assignment("y", new Variable("x")))),
+                new Sequence(
+                        new Assignment("z", new Add(new Variable("x"), new Variable("y"))),
+                        new DoNothing()));
+
+        assertSameSteps(stmt, new Environment());
+    }
+
+    @Test void nested_while() {
+        var env = new Environment(Map.of("i", asNumber(0), "s", asNumber(0)));
+        var stmt = new While(
+                new LessThan(new Variable("i"), asNumber(3)),
+                new Sequence(
+                        new Assignment("j", asNumber(0)),
+                        new Sequence(
+                                new While(
+                                        new LessThan(new Variable("j"), new Variable("i")),
+                                        new Sequence(
+                                                new Assignment("s", new Add(new Variable("s"), new Mult(new Variable("i"), new Variable("j")))),
+                                                new Assignment("j", new Add(new Variable("j"), asNumber(1))))),
+                                new Assignment("i", new Add(new Variable("i"), asNumber(1))))));
+
+        var result = assertSameSteps(stmt, env);
+
+        assertThat(result.get("s")).isEqualTo(asNumber(2));
+    }
+
+    @Test void both_machines_run_in_slices() {
+        var env = new Environment(Map.of("i", asNumber(0), "s", asNumber(0)));
+        var stmt = new While(
+                new LessThan(new Variable("i"), asNumber(50)),
+                new Sequence(
+                        new Assignment("s", new Add(new Variable("s"), new Variable("i"))),
+                        new Assignment("i", new Add(new Variable("i"), asNumber(1)))));
+        var expected = AbstractMachine.evaluate(stmt, env).toString();
+
+        Configuration configuration = AbstractMachine.evaluate(stmt, env, Fuel.steps(7));
+        int slices = 1;
+        while (!configuration.finished()) {
+            configuration = AbstractMachine.resume(configuration, Fuel.steps(7));
+            slices++;
+        }
+        assertThat(slices).isGreaterThan(1);
+        assertThat(configuration.environment().toString()).isEqualTo(expected);
+
+        var machine = new ContextMachine(stmt, env);
+        slices = 1;
+        while (!machine.run(Fuel.steps(7)))
+            slices++;
+        assertThat(slices).isGreaterThan(1);
+        assertThat(machine.environment().toString()).isEqualTo(expected);
+    }
+
+    private static Environment assertSameSteps(Statement stmt, Environment env) {
+        var expected = new Recorder();
+        var expectedEnv = AbstractMachine.evaluate(stmt, env, expected);
+        var actual = new Recorder();
+        var actualEnv = ContextMachine.evaluate(stmt, env, actual);
+
+        assertThat(actual.steps).isEqualTo(expected.steps);
+        assertThat(actualEnv.toString()).isEqualTo(expectedEnv.toString());
+        return actualEnv;
+    }
+
+    private static class Recorder implements StepListener {
+        final List<String> steps = new ArrayList<>();
+
+        @Override public void onStep(Configuration configuration) {
+            steps.add(configuration.statement() + ", " + configuration.environment());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package smallstep;
+
+import mylang.BenchmarkPrograms;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static smallstep.SmallStep.*;
+
+class OptimizerTest {
+
+    @Test void folds_constants_and_identities() {
+        var stmt = AstBuilder.parse("x = 2 * 3 + 4 * y * 1 + 0; z = x * 0 + 1 * (0 + x); b = 1 < 2;");
+
+        assertThat(Optimizer.optimize(stmt)).hasToString("x = 6 + 4 * y; z = x; b = 1");
+    }
+
+    @Test void prunes_decided_branches() {
+        var stmt = AstBuilder.parse("""
+                if (1 < 2) { x = 1; } else { x = 2; }
+                while (false) { x = 3; }
+                do-nothing;
+                if (0 * x) { y = 1; } else { do-nothing }
+                """);
+
+        assertThat(Optimizer.optimize(stmt)).hasToString("x = 1");
+    }
+
+    @Test void same_result_and_fewer_steps() {
+        var stmt = AstBuilder.parse("""
+                y = 5;
+                i = 0;
+                while (i < 2 + 3) { i = i + 1 * 1; do-nothing; y = y * (2 * 1 + 0); }
+                if (true) { z = y + 0; } else { z = 0; }
+                """);
+        var optimized = Optimizer.optimize(stmt);
+
+        var steps = new int[2];
+        var expected = AbstractMachine.evaluate(stmt, new Environment(), new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                steps[0]++;
+            }
+        });
+        var result = AbstractMachine.evaluate(optimized, new Environment(), new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                steps[1]++;
+            }
+        });
+
+        assertThat(result).hasToString(expected.toString());
+        assertThat(result.get("z")).isEqualTo(asNumber(160));
+        assertThat(steps[1]).isLessThan(steps[0]);
+    }
+
+    @Test void same_result_for_every_machine() {
+        for (var program : new String[]{"factorial", "nested", "chain", "wide", "deep"}) {
+            var stmt = AstBuilder.parse(BenchmarkPrograms.source(program, 30));
+            var optimized = Optimizer.optimize(stmt);
+
+            var expected = AbstractMachine.evaluate(stmt, new Environment()).toString();
+
+            assertThat(AbstractMachine.evaluate(optimized, new Environment())).hasToString(expected);
+            assertThat(ContextMachine.evaluate(optimized, new Environment())).hasToString(expected);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package smallstep;
+
+import org.junit.jupiter.api.Test;
+import runtime.Profile;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static smallstep.SmallStep.*;
+
+class ProfilerTest {
+
+    @Test void charges_every_step() {
+        var program = AstBuilder.parse("x = 0; while (x < 3) { x = x + 1; }");
+        var profile = new Profile();
+
+        var result = Profiler.evaluate(program, new Environment(), profile);
+
+        var steps = new ArrayList<String>();
+        var expected = ContextMachine.evaluate(program, new Environment(), new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                steps.add(configuration.statement().toString());
+            }
+        });
+        assertThat(result.toString()).isEqualTo(expected.toString());
+        assertThat(steps(profile.root())).isEqualTo(steps.size() - 1);
+
+        var assignment = profile.root().child("x = x + 1");
+        assertThat(assignment.visits()).isEqualTo(9); // two reductions and the store, three times
+        assertThat(assignment.child("x + 1").steps()).isEqualTo(3);
+        assertThat(assignment.child("x").steps()).isEqualTo(3);
+        assertThat(profile.root().child("while ( x < 3 ) { x = x + 1 }").steps()).isEqualTo(4); // unfolded before every check
+    }
+
+    @Test void matches_an_unprofiled_run() {
+        var env = new Environment(Map.of("n", asNumber(6)));
+        var program = AstBuilder.parse("r = 1; i = 1; while (i < n) { i = i + 1; r = r * i; }");
+
+        var profiled = Profiler.evaluate(program, env, new Profile());
+
+        assertThat(profiled.toString()).isEqualTo(ContextMachine.evaluate(program, env).toString());
+    }
+
+    private static long steps(Profile.Node node) {
+        long steps = node.steps();
+        for (var child : node.children())
+            steps += steps(child);
+        return steps;
+    }
+}
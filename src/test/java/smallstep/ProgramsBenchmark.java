@@ -0,0 +1,39 @@
+package smallstep;
+
+import mylang.BenchmarkPrograms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static smallstep.SmallStep.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgramsBenchmark {
+
+    @Param({"factorial", "nested", "chain", "wide", "deep"})
+    String program;
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    Statement statement;
+    Environment env;
+
+    @Setup public void setUp() {
+        statement = AstBuilder.parse(BenchmarkPrograms.source(program, size));
+        env = new Environment();
+    }
+
+    @Benchmark public Object abstractMachine() {
+        return AbstractMachine.evaluate(statement, env);
+    }
+
+    @Benchmark public Object contextMachine() {
+        return ContextMachine.evaluate(statement, env);
+    }
+}
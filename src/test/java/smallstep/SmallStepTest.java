@@ -2,6 +2,7 @@ package smallstep;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -117,4 +118,30 @@ class SmallStepTest {
         var result = AbstractMachine.evaluate(stmt, env);
         assertThat(result.get("x")).isEqualTo(asNumber(4));
     }
+
+    @Test void step_listener_sees_every_configuration() {
+        var env = new Environment(Map.of("x", asNumber(0)));
+        var stmt = new Assignment("x", new Add(new Variable("x"), asNumber(1)));
+        var steps = new ArrayList<String>();
+
+        AbstractMachine.evaluate(stmt, env, new StepListener() {
+            @Override public void onStep(Configuration configuration) {
+                steps.add(configuration.statement() + ", " + configuration.environment());
+            }
+        });
+
+        assertThat(steps).containsExactly(
+                "x = x + 1, {x=0}",
+                "x = 0 + 1, {x=0}",
+                "x = 1, {x=0}",
+                "do-nothing, {x=1}");
+    }
+
+    @Test void parse_and_reduce() {
+        var stmt = AstBuilder.parse("x = 0; while (x < 4) { x = x + 1; } if (true) { y = x * 2; } else { do-nothing }");
+
+        var result = AbstractMachine.evaluate(stmt);
+
+        assertThat(result.get("y")).isEqualTo(asNumber(8));
+    }
 }
\ No newline at end of file